@@ -0,0 +1,68 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Каждый вызов заполняет новый менеджер, чтобы доска не росла от итерации к итерации.
+// Время указано на одну созданную задачу.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CreateBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+    private static final Duration SLOT = Duration.ofMinutes(30);
+
+    @Param({"false", "true"})
+    public boolean timed;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createTask() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < BATCH; i++) {
+            Task task = manager.createTask("купить книгу", "физика химия биология");
+            if (timed) {
+                task = task.withSchedule(START.plusMinutes(30L * i), SLOT);
+                manager.updateTask(task);
+            }
+        }
+        return manager;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public InMemoryTaskManager createSubtask() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic("ремонт", "кухня ванная");
+        for (int i = 0; i < BATCH; i++) {
+            Subtask subtask = manager.createSubtask("покрасить стены", "выбрать цвет", epic.getId());
+            if (timed) {
+                subtask = subtask.withSchedule(START.plusMinutes(30L * i), SLOT);
+                manager.updateSubtask(subtask);
+            }
+        }
+        return manager;
+    }
+}
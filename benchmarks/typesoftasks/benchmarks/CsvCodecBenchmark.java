@@ -0,0 +1,176 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.CsvTaskReader;
+import typesoftasks.managers.CsvTaskWriter;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение потокового кодека с прежней парой toString/fromString на split(",").
+// Прежний формат не сохранял duration и startTime, поэтому новый пишет и читает больше данных.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvCodecBenchmark {
+
+    @Param({"200000"})
+    public int rows;
+
+    private List<Task> tasks;
+    private String legacyText;
+    private String codecText;
+
+    @Setup
+    public void setUp() throws IOException {
+        tasks = generate(rows);
+        legacyText = toText(tasks, false);
+        codecText = toText(tasks, true);
+    }
+
+    @Benchmark
+    public int legacyWrite() throws IOException {
+        return legacyWrite(tasks, new BufferedWriter(new NullWriter()));
+    }
+
+    @Benchmark
+    public int codecWrite() throws IOException {
+        return codecWrite(tasks, new BufferedWriter(new NullWriter()));
+    }
+
+    @Benchmark
+    public int legacyRead() throws IOException {
+        return legacyRead(legacyText);
+    }
+
+    @Benchmark
+    public int codecRead() throws IOException {
+        return codecRead(codecText);
+    }
+
+    static List<Task> generate(int rows) {
+        List<Task> tasks = new ArrayList<>(rows);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 1; i <= rows; i++) {
+            Task task;
+            if (i % 10 == 0) {
+                task = new Epic(i, "ремонт " + i, "кухня ванная");
+            } else if (i % 10 < 4) {
+                task = new Subtask(i, "покрасить стены " + i, "выбрать цвет", i - i % 10);
+            } else {
+                task = new Task(i, "купить книгу " + i, "физика химия биология");
+            }
+            task = task.withSchedule(start.plusMinutes(30L * i), Duration.ofMinutes(30));
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static String toText(List<Task> tasks, boolean codec) throws IOException {
+        StringWriter out = new StringWriter();
+        if (codec) {
+            codecWrite(tasks, out);
+        } else {
+            legacyWrite(tasks, out);
+        }
+        return out.toString();
+    }
+
+    private static int codecWrite(List<Task> tasks, Writer out) throws IOException {
+        CsvTaskWriter writer = new CsvTaskWriter(out);
+        for (Task task : tasks) {
+            writer.write(task);
+        }
+        writer.flush();
+        out.flush();
+        return tasks.size();
+    }
+
+    private static int codecRead(String text) throws IOException {
+        CsvTaskReader reader = new CsvTaskReader(new StringReader(text));
+        int count = 0;
+        while (reader.next() != null) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int legacyWrite(List<Task> tasks, Writer out) throws IOException {
+        for (Task task : tasks) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(task.getId()).append(",");
+            sb.append(task.getType()).append(",");
+            sb.append(task.getTitle()).append(",");
+            sb.append(task.getStatus()).append(",");
+            sb.append(task.getDescription()).append(",");
+            if (task instanceof Subtask) {
+                sb.append(((Subtask) task).getEpicId());
+            }
+            out.write(sb.toString() + "\n");
+        }
+        out.flush();
+        return tasks.size();
+    }
+
+    private static int legacyRead(String text) throws IOException {
+        BufferedReader in = new BufferedReader(new StringReader(text));
+        int count = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] fields = line.split(",");
+            int id = Integer.parseInt(fields[0]);
+            TaskType type = TaskType.valueOf(fields[1]);
+            TaskStatus status = TaskStatus.valueOf(fields[3]);
+            if (type == TaskType.SUBTASK) {
+                new Subtask(id, fields[2], fields[4], Integer.parseInt(fields[5]), status, null, null);
+            } else if (type == TaskType.EPIC) {
+                new Epic(id, fields[2], fields[4]);
+            } else {
+                new Task(id, fields[2], fields[4], status, null, null);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Один эпик с большим числом подзадач: пересчёт статуса и обновление подзадачи, которое двигает агрегаты эпика.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EpicBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Param({"1000", "100000"})
+    public int subtasks;
+
+    private InMemoryTaskManager manager;
+    private Epic epic;
+    private List<Subtask> members;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        epic = manager.createEpic("ремонт", "кухня ванная");
+        List<Task> drafts = new ArrayList<>(subtasks);
+        for (int i = 0; i < subtasks; i++) {
+            Subtask draft = new Subtask(0, "покрасить стены", "выбрать цвет", epic.getId())
+                    .withStatus(i % 3 == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS)
+                    .withSchedule(START.plusHours(i), Duration.ofMinutes(30));
+            drafts.add(draft);
+        }
+        members = new ArrayList<>();
+        for (Task task : manager.createAll(drafts)) {
+            members.add((Subtask) task);
+        }
+    }
+
+    @Benchmark
+    public TaskStatus updateEpicStatus() {
+        manager.updateEpicStatus(epic);
+        return stored().getStatus();
+    }
+
+    @Benchmark
+    public TaskStatus updateSubtask() {
+        cursor = (cursor + 1) % members.size();
+        Subtask subtask = members.get(cursor);
+        subtask = subtask.withStatus(subtask.getStatus() == TaskStatus.DONE ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+        members.set(cursor, manager.updateSubtask(subtask));
+        return stored().getStatus();
+    }
+
+    // Эпик неизменяем: после изменения подзадач менеджер хранит его новый снимок
+    private Epic stored() {
+        return manager.getAllEpics().iterator().next();
+    }
+}
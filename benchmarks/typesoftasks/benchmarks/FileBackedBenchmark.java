@@ -0,0 +1,99 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.FileBackedTaskManager;
+import typesoftasks.managers.FsyncPolicy;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.SnapshotFormat;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Полный снимок доски: compact() в режиме SNAPSHOT — это ровно save(), loadFromFile читает снимок целиком.
+// Каждый десятый элемент — эпик, у него три подзадачи, остальное — обычные задачи со временем.
+// fsync влияет только на save(): сколько стоит дождаться диска перед подменой снимка.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FileBackedBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"CSV", "BINARY"})
+    public SnapshotFormat format;
+
+    @Param({"NONE", "DATA", "FULL"})
+    public FsyncPolicy fsync;
+
+    private File file;
+    private FileBackedTaskManager manager;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("kanban-bench", format == SnapshotFormat.BINARY ? ".bin" : ".csv");
+        manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT, format);
+        manager.setFsyncPolicy(fsync);
+        manager.createAll(drafts(size));
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public File save() {
+        manager.compact();
+        return file;
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadFromFile() {
+        return FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT, format);
+    }
+
+    static List<Task> drafts(int size) {
+        List<Task> drafts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Task draft;
+            if (i % 10 == 0) {
+                draft = new Epic(-i - 1, "ремонт " + i, "кухня ванная");
+            } else if (i % 10 < 4) {
+                draft = new Subtask(0, "покрасить стены " + i, "выбрать цвет", -(i - i % 10) - 1);
+            } else {
+                draft = new Task(0, "купить книгу " + i, "физика химия биология");
+            }
+            if (!(draft instanceof Epic)) {
+                draft = draft.withSchedule(START.plusMinutes(30L * i), Duration.ofMinutes(30));
+            }
+            drafts.add(draft);
+        }
+        return drafts;
+    }
+}
@@ -0,0 +1,107 @@
+package typesoftasks.benchmarks;
+
+import typesoftasks.managers.DurabilityMode;
+import typesoftasks.managers.FileBackedTaskManager;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.SnapshotFormat;
+import typesoftasks.metrics.Metrics;
+import typesoftasks.tasks.Epic;
+import typesoftasks.util.BoundedStringPool;
+import typesoftasks.util.StringPool;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+// Память доски из шаблонов: каждый эпик получает одни и те же подзадачи с одинаковыми заголовками
+// и описаниями. Сравнивается удерживаемая куча без пула строк и с BoundedStringPool — для задач,
+// созданных через API (строки приходят новыми экземплярами, как из HTTP), и для загрузки из CSV.
+//
+//   gradle footprint -Pfootprint="epics=5000 steps=20 descriptionLength=200"
+//
+// JMH тут не подходит: измеряется не время, а размер живых объектов после сборки мусора.
+public class FootprintBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int epics = intArg(args, "epics", 5_000);
+        int steps = intArg(args, "steps", 20);
+        int descriptionLength = intArg(args, "descriptionLength", 200);
+        String[] titles = new String[steps];
+        String[] descriptions = new String[steps];
+        for (int i = 0; i < steps; i++) {
+            titles[i] = "Шаг " + (i + 1) + " из шаблона";
+            descriptions[i] = ("Проверить пункт " + (i + 1) + " по чек-листу и отметить результат. ")
+                    .repeat(descriptionLength / 60 + 1).substring(0, descriptionLength);
+        }
+        System.out.printf("epics=%d steps=%d descriptionLength=%d tasks=%d%n",
+                epics, steps, descriptionLength, epics * (steps + 1));
+        System.out.printf("%-20s %12s %10s %14s%n", "scenario", "heap,MB", "hitRate", "saved(est),MB");
+
+        File file = File.createTempFile("footprint", ".csv");
+        file.deleteOnExit();
+        for (boolean pooled : new boolean[]{false, true}) {
+            BoundedStringPool pool = new BoundedStringPool();
+            long before = usedHeap();
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            if (pooled) {
+                manager.setStringPool(pool);
+            }
+            fill(manager, epics, titles, descriptions);
+            print("api" + (pooled ? "+pool" : ""), usedHeap() - before, pooled ? pool : null);
+            manager = null;
+        }
+
+        FileBackedTaskManager writer = new FileBackedTaskManager(file);
+        writer.setDurability(DurabilityMode.GROUP_COMMIT, 60_000);
+        fill(writer, epics, titles, descriptions);
+        writer.close();
+        for (boolean pooled : new boolean[]{false, true}) {
+            BoundedStringPool pool = new BoundedStringPool();
+            long before = usedHeap();
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT,
+                    SnapshotFormat.CSV, Metrics.NOOP, pooled ? pool : StringPool.NOOP);
+            print("load" + (pooled ? "+pool" : ""), usedHeap() - before, pooled ? pool : null);
+            loaded.close();
+        }
+        file.delete();
+    }
+
+    private static void fill(InMemoryTaskManager manager, int epics, String[] titles, String[] descriptions) {
+        for (int e = 0; e < epics; e++) {
+            Epic epic = manager.createEpic("Квартира " + e, copy(descriptions[0]));
+            for (int i = 0; i < titles.length; i++) {
+                manager.createSubtask(copy(titles[i]), copy(descriptions[i]), epic.getId());
+            }
+        }
+    }
+
+    // new String(String) делит массив символов с оригиналом, а разобранный запрос — нет
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    private static void print(String scenario, long bytes, BoundedStringPool pool) {
+        System.out.printf("%-20s %12.1f %10s %14s%n", scenario, bytes / 1048576.0,
+                pool != null ? String.format("%.3f", pool.getHitRate()) : "-",
+                pool != null ? String.format("%.1f", pool.getBytesSaved() / 1048576.0) : "-");
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return Integer.parseInt(arg.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+}
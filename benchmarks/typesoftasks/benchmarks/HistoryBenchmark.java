@@ -0,0 +1,64 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.InMemoryHistoryManager;
+import typesoftasks.tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// История заполнена до ёмкости; add повторно просматривает задачи вперемешку, вытесняя самые старые.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HistoryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int capacity;
+
+    private InMemoryHistoryManager history;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        history = new InMemoryHistoryManager(capacity);
+        tasks = new Task[capacity * 2];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i + 1, "задача", "описание");
+        }
+        for (int i = 0; i < capacity; i++) {
+            history.add(tasks[i]);
+        }
+    }
+
+    @Benchmark
+    public int add() {
+        cursor = (cursor + 7_919) % tasks.length;
+        history.add(tasks[cursor]);
+        return cursor;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+
+    @Benchmark
+    public List<Task> getRecentHistory() {
+        return history.getHistory(10);
+    }
+}
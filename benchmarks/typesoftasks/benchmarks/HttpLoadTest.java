@@ -0,0 +1,146 @@
+package typesoftasks.benchmarks;
+
+import typesoftasks.http.HttpTaskServer;
+import typesoftasks.managers.ConcurrentTaskManager;
+import typesoftasks.managers.Managers;
+import typesoftasks.metrics.LatencyHistogram;
+import typesoftasks.tasks.Task;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный прогон HttpTaskServer: клиенты в этом же процессе ходят по keep-alive соединениям
+// в замкнутом цикле (следующий запрос — после ответа на предыдущий).
+// Смесь: 70% GET /tasks/{id}, 20% POST /tasks с обновлением, 10% GET /history.
+//
+//   gradle loadTest -PloadTest="clients=16 seconds=20 tasks=10000"
+//
+// Клиенты делят ядра с сервером, поэтому на машине с малым числом ядер запросы в секунду занижены;
+// для оценки узла запускайте клиентов на отдельной машине с тем же профилем запросов.
+public class HttpLoadTest {
+
+    private static final String[] KINDS = {"GET /tasks/{id}", "POST /tasks", "GET /history"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = intArg(args, "clients", 16);
+        int seconds = intArg(args, "seconds", 20);
+        int warmup = intArg(args, "warmup", 5);
+        int taskCount = intArg(args, "tasks", 10_000);
+
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = manager.createTask("Задача " + i, "Описание задачи " + i);
+            manager.updateTask(task.withSchedule(start.plusMinutes(30L * i), Duration.ofMinutes(30)));
+        }
+
+        try (HttpTaskServer server = new HttpTaskServer(manager, new InetSocketAddress("localhost", 0),
+                HttpTaskServer.defaultExecutor())) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            System.out.printf("clients=%d tasks=%d warmup=%ds measure=%ds cores=%d%n",
+                    clients, taskCount, warmup, seconds, Runtime.getRuntime().availableProcessors());
+
+            run(base, clients, taskCount, TimeUnit.SECONDS.toNanos(warmup), new LatencyHistogram[KINDS.length],
+                    new AtomicLong());
+
+            LatencyHistogram[] histograms = new LatencyHistogram[KINDS.length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+            AtomicLong errors = new AtomicLong();
+            long elapsed = run(base, clients, taskCount, TimeUnit.SECONDS.toNanos(seconds), histograms, errors);
+
+            System.out.printf("%-18s %10s %10s %10s %10s %10s%n", "request", "count", "p50,us", "p99,us",
+                    "p999,us", "max,us");
+            for (int i = 0; i < KINDS.length; i++) {
+                print(KINDS[i], histograms[i]);
+            }
+            long count = 0;
+            for (LatencyHistogram histogram : histograms) {
+                count += histogram.getCount();
+            }
+            System.out.printf("requests/s=%.0f errors=%d%n", count * 1e9 / elapsed, errors.get());
+        }
+    }
+
+    private static long run(String base, int clients, int taskCount, long durationNanos,
+                            LatencyHistogram[] histograms, AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + durationNanos;
+        List<Thread> threads = new ArrayList<>();
+        long began = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            Thread thread = new Thread(() -> client(base, taskCount, deadline, seed, histograms, errors));
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - began;
+    }
+
+    // У каждого клиента свой HttpClient, то есть своё keep-alive соединение
+    private static void client(String base, int taskCount, long deadline, long seed,
+                               LatencyHistogram[] histograms, AtomicLong errors) {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        SplittableRandom random = new SplittableRandom(seed);
+        while (System.nanoTime() < deadline) {
+            int roll = random.nextInt(10);
+            int id = 1 + random.nextInt(taskCount);
+            int kind;
+            HttpRequest request;
+            if (roll < 7) {
+                kind = 0;
+                request = HttpRequest.newBuilder(URI.create(base + "/tasks/" + id)).GET().build();
+            } else if (roll < 9) {
+                kind = 1;
+                request = HttpRequest.newBuilder(URI.create(base + "/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"id\":" + id + ",\"title\":\"Задача " + id
+                                + "\",\"description\":\"Обновлено\",\"status\":\"IN_PROGRESS\"}"))
+                        .build();
+            } else {
+                kind = 2;
+                request = HttpRequest.newBuilder(URI.create(base + "/history")).GET().build();
+            }
+            long started = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() >= 300) {
+                    errors.incrementAndGet();
+                }
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+            if (histograms[kind] != null) {
+                histograms[kind].record(System.nanoTime() - started);
+            }
+        }
+    }
+
+    private static void print(String name, LatencyHistogram histogram) {
+        System.out.printf("%-18s %10d %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+                histogram.getPercentile(50) / 1e3, histogram.getPercentile(99) / 1e3,
+                histogram.getPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+    }
+
+    private static int intArg(String[] args, String name, int defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return Integer.parseInt(arg.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,90 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.tasks.Task;
+import typesoftasks.util.IntObjectMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Память на задачу в хранилище: HashMap<Integer, Task> против IntObjectMap, обе заранее нужного размера.
+// Смотреть gc.alloc.rate.norm, делённый на size:
+//
+//   gradle jmh -Pjmh="IntObjectMapBenchmark -prof gc"
+//
+// Ожидается, что IntObjectMap выделяет хотя бы вдвое меньше байт, чем HashMap с упакованными ключами
+// (id от 1000, то есть вне кэша Integer).
+// removeAndPut и getRemoved — удаление и повторная вставка id посреди заполненной подряд карты и поиск
+// удалённого id: время на операцию не должно расти с size.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntObjectMapBenchmark {
+
+    @Param({"200000"})
+    public int size;
+
+    private Task[] tasks;
+    private IntObjectMap<Task> filled;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        tasks = new Task[size];
+        filled = new IntObjectMap<>();
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1000, "Задача", "Описание");
+            filled.put(tasks[i].getId(), tasks[i]);
+        }
+        // Каждый сотый id удалён: как после удаления задач
+        for (int i = 0; i < size; i += 100) {
+            filled.remove(tasks[i].getId());
+        }
+    }
+
+    @Benchmark
+    public Task removeAndPut() {
+        cursor = (cursor + 37) % size;
+        Task task = tasks[cursor | 1];
+        filled.remove(task.getId());
+        return filled.put(task.getId(), task);
+    }
+
+    @Benchmark
+    public boolean getRemoved() {
+        cursor = (cursor + 100) % size;
+        return filled.containsKey(tasks[cursor - cursor % 100].getId());
+    }
+
+    @Benchmark
+    public Map<Integer, Task> boxedHashMap() {
+        Map<Integer, Task> map = new HashMap<>(size * 4 / 3 + 1);
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public IntObjectMap<Task> intObjectMap() {
+        IntObjectMap<Task> map = new IntObjectMap<>(size);
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+}
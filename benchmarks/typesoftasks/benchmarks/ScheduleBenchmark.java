@@ -0,0 +1,73 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Доска из size задач по 30 минут с получасовыми окнами между ними.
+// hasIntersection закрыт, поэтому он измеряется через updateTask: задача-зонд переезжает по свободным окнам,
+// и каждое обновление проверяет пересечения, снимает старый слот и ставит новый.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScheduleBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private Task probe;
+    private int gap;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        List<Task> drafts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            drafts.add(new Task(0, "задача", "описание").withSchedule(START.plusHours(i), Duration.ofMinutes(30)));
+        }
+        manager.createAll(drafts);
+        probe = manager.createTask("зонд", "описание");
+        probe = probe.withDuration(Duration.ofMinutes(20));
+    }
+
+    @Benchmark
+    public Task updateWithOverlapCheck() {
+        gap = (gap + 7_919) % size;
+        probe = manager.updateTask(probe.withStartTime(START.plusHours(gap).plusMinutes(35)));
+        return probe;
+    }
+
+    @Benchmark
+    public List<Task> getOverlappingTasks() {
+        gap = (gap + 7_919) % size;
+        LocalDateTime from = START.plusHours(gap);
+        return manager.getOverlappingTasks(from, from.plusHours(3));
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+}
@@ -0,0 +1,97 @@
+package typesoftasks.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import typesoftasks.managers.Managers;
+import typesoftasks.managers.ShardedTaskManager;
+import typesoftasks.managers.TaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность записи при нескольких потоках: ConcurrentTaskManager против шардов.
+// Каждый поток пишет в свой эпик, так что шардированный менеджер упирается только в свой шард.
+// ConcurrentTaskManager пишет под одной блокировкой записи, шарды — под блокировкой своего шарда,
+// индексы статусов и поиска ведут оба. Число потоков задаётся через -t; на одном ядре роста не будет.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ShardedBenchmark {
+
+    @Param({"concurrent", "sharded-1", "sharded-4", "sharded-16"})
+    public String manager;
+
+    TaskManager taskManager;
+
+    // Каждая итерация начинается с пустого менеджера, чтобы доска не росла от итерации к итерации
+    @Setup(Level.Iteration)
+    public void setUp() {
+        taskManager = manager.equals("concurrent")
+                ? Managers.getConcurrent()
+                : ShardedTaskManager.inMemory(Integer.parseInt(manager.substring("sharded-".length())));
+    }
+
+    // Поток удаляет созданное порциями по LIMIT задач, иначе за итерацию доска вырастает до миллионов задач
+    @State(Scope.Thread)
+    public static class Writer {
+        static final int LIMIT = 4_096;
+
+        Epic epic;
+        Subtask last;
+        final List<Integer> created = new ArrayList<>(LIMIT);
+
+        <T extends Task> T created(TaskManager manager, T task) {
+            created.add(task.getId());
+            if (created.size() == LIMIT) {
+                manager.deleteAll(created);
+                created.clear();
+            }
+            return task;
+        }
+
+        @Setup(Level.Iteration)
+        public void setUp(ShardedBenchmark benchmark) {
+            epic = benchmark.taskManager.createEpic("ремонт", "кухня ванная");
+            created.clear();
+            last = benchmark.taskManager.createSubtask("покрасить стены", "выбрать цвет", epic.getId());
+        }
+    }
+
+    @Benchmark
+    public Task createTask(ShardedBenchmark state, Writer writer) {
+        return writer.created(state.taskManager, state.taskManager.createTask("купить книгу", "физика химия биология"));
+    }
+
+    @Benchmark
+    public Subtask createSubtask(ShardedBenchmark state, Writer writer) {
+        return writer.created(state.taskManager,
+                state.taskManager.createSubtask("покрасить стены", "выбрать цвет", writer.epic.getId()));
+    }
+
+    @Benchmark
+    public Subtask updateSubtask(ShardedBenchmark state, Writer writer) {
+        writer.last = state.taskManager.updateSubtask(writer.last.withStatus(
+                writer.last.getStatus() == TaskStatus.DONE ? TaskStatus.IN_PROGRESS : TaskStatus.DONE));
+        return writer.last;
+    }
+}
@@ -0,0 +1,379 @@
+package typesoftasks.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import typesoftasks.managers.StaleVersionException;
+import typesoftasks.managers.TaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// HTTP/JSON поверх TaskManager.
+//   GET    /tasks, /epics, /subtasks          — списки по типу
+//   GET    /tasks/{id}, /epics/{id}, /subtasks/{id} — задача (попадает в историю)
+//   GET    /epics/{id}/subtasks               — подзадачи эпика
+//   POST   /tasks, /epics, /subtasks          — без id создаёт (201), с id обновляет существующую задачу
+//                                              того же типа (200, иначе 404)
+//   DELETE /tasks/{id}, /epics/{id}, /subtasks/{id} — 204, даже если задачи уже нет
+//   GET    /history, /prioritized
+// Ответы: 404 — нет задачи или пути, 406 — пересечение по времени или нет эпика, 409 — устаревшая версия,
+// 400 — некорректный запрос. Соединения keep-alive, ответы отдаются порциями (chunked).
+// Заголовки и тело ответа уходят в сокет разными записями, и с алгоритмом Нейгла каждый запрос keep-alive
+// ждёт отложенного ACK клиента (~40 мс). Сервер не меняет настройки JVM сам: запускайте его
+// с -Dsun.net.httpserver.nodelay=true (так делают loadTest и тесты). Свойство читается один раз,
+// при первом запуске HttpServer в JVM.
+public class HttpTaskServer implements AutoCloseable {
+
+    private static final int NO_BODY = -1;
+    private static final int CHUNKED = 0;
+
+    private final TaskManager manager;
+    // Менеджер без isThreadSafe() не рассчитан на параллельные вызовы: к нему обращаемся
+    // под его же монитором, как FileBackedTaskManager синхронизирует запись
+    private final Object guard;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        this(manager, new InetSocketAddress(port), defaultExecutor());
+    }
+
+    public HttpTaskServer(TaskManager manager, InetSocketAddress address, ExecutorService executor)
+            throws IOException {
+        this.manager = manager;
+        this.guard = manager.isThreadSafe() ? null : manager;
+        this.executor = executor;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/tasks", exchange -> handle(exchange, TaskType.TASK));
+        server.createContext("/epics", exchange -> handle(exchange, TaskType.EPIC));
+        server.createContext("/subtasks", exchange -> handle(exchange, TaskType.SUBTASK));
+        server.createContext("/history", exchange -> handleList(exchange, manager::getHistory));
+        server.createContext("/prioritized", exchange -> handleList(exchange, manager::getPrioritizedTasks));
+    }
+
+    // Виртуальный поток на запрос, если JDK их поддерживает (21+), иначе пул потоков:
+    // обработчики почти всё время ждут сеть, поэтому потоков больше, чем ядер
+    public static ExecutorService defaultExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Не удалось создать исполнитель запросов", e);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange, TaskType type) throws IOException {
+        try {
+            String[] path = segments(exchange);
+            boolean subtasksOfEpic = path != null && path.length == 4 && type == TaskType.EPIC
+                    && path[3].equals("subtasks");
+            if (path == null || (path.length > 3 && !subtasksOfEpic)) {
+                sendError(exchange, 404, "Путь не найден: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            Integer id = path.length > 2 ? parseId(path[2]) : null;
+            if (subtasksOfEpic && !exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    if (id == null) {
+                        sendTasks(exchange, 200, call(() -> byType(type)));
+                    } else if (subtasksOfEpic) {
+                        List<Subtask> subtasks = call(() -> manager.getSubtasksByEpic(id));
+                        sendTasks(exchange, 200, subtasks);
+                    } else {
+                        sendTask(exchange, 200, call(() -> get(type, id)));
+                    }
+                    break;
+                case "POST":
+                    Map<String, Object> body = readBody(exchange);
+                    if (body.get("id") == null) {
+                        sendTask(exchange, 201, call(() -> manager.createAll(List.of(draft(type, body, 0))).get(0)));
+                    } else {
+                        Task update = draft(type, body, intNumber(body, "id"));
+                        sendTask(exchange, 200, call(() -> update(update)));
+                    }
+                    break;
+                case "DELETE":
+                    if (id == null) {
+                        throw new BadRequestException("Не указан id задачи");
+                    }
+                    call(() -> delete(type, id));
+                    send(exchange, 204);
+                    break;
+                default:
+                    sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+            }
+        } catch (BadRequestException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (StaleVersionException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 406, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleList(HttpExchange exchange, Supplier<List<Task>> source) throws IOException {
+        try {
+            String[] path = segments(exchange);
+            if (path == null || path.length > 2) {
+                sendError(exchange, 404, "Путь не найден: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Метод не поддерживается: " + exchange.getRequestMethod());
+                return;
+            }
+            sendTasks(exchange, 200, call(source));
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Под защитой собираются только неизменяемые снимки задач и списки-копии, сериализуются они уже без неё
+    private <T> T call(Supplier<T> action) {
+        if (guard == null) {
+            return action.get();
+        }
+        synchronized (guard) {
+            return action.get();
+        }
+    }
+
+    private List<Task> byType(TaskType type) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : manager.getAllTasksView()) {
+            if (task.getType() == type) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private Task get(TaskType type, int id) {
+        switch (type) {
+            case EPIC:
+                return manager.getEpic(id);
+            case SUBTASK:
+                return manager.getSubtaskById(id);
+            default:
+                return manager.getTask(id);
+        }
+    }
+
+    // Обновляется только существующая задача того же типа: сами update* менеджера записывают задачу
+    // и под новым id. Черновик без версии проверяется по только что прочитанной, поэтому удаление
+    // между проверкой и записью даёт 409, а не воскрешает задачу (у потокобезопасных менеджеров guard нет)
+    private Task update(Task update) {
+        Task existing = manager.find(update.getId());
+        if (existing == null || existing.getType() != update.getType()) {
+            return null;
+        }
+        if (update.getVersion() == Task.UNVERSIONED) {
+            update = update.withVersion(existing.getVersion());
+        }
+        switch (update.getType()) {
+            case EPIC:
+                return manager.updateEpic((Epic) update);
+            case SUBTASK:
+                return manager.updateSubtask((Subtask) update);
+            default:
+                return manager.updateTask(update);
+        }
+    }
+
+    // Удаление идемпотентно: отсутствующая задача тоже даёт 204
+    private Void delete(TaskType type, int id) {
+        switch (type) {
+            case EPIC:
+                manager.deleteEpicById(id);
+                break;
+            case SUBTASK:
+                manager.deleteSubtaskById(id);
+                break;
+            default:
+                manager.deleteTaskById(id);
+        }
+        return null;
+    }
+
+    private static Task draft(TaskType type, Map<String, Object> body, int id) {
+        String title = text(body, "title");
+        String description = text(body, "description");
+        TaskStatus status = body.get("status") != null ? status(body) : TaskStatus.NEW;
+        Duration duration = body.get("duration") != null ? Duration.ofMinutes(number(body, "duration")) : null;
+        LocalDateTime startTime = body.get("startTime") != null ? time(body, "startTime") : null;
+        long version = body.get("version") != null ? number(body, "version") : Task.UNVERSIONED;
+        switch (type) {
+            case EPIC:
+                return new Epic(id, title, description, version);
+            case SUBTASK:
+                if (body.get("epicId") == null) {
+                    throw new BadRequestException("Для подзадачи нужен epicId");
+                }
+                return new Subtask(id, title, description, intNumber(body, "epicId"), status, duration,
+                        startTime, version);
+            default:
+                return new Task(id, title, description, status, duration, startTime, version);
+        }
+    }
+
+    private static String text(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new BadRequestException("Поле " + field + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static int intNumber(Map<String, Object> body, String field) {
+        long value = number(body, field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new BadRequestException("Поле " + field + " вне диапазона int: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long number(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (!(value instanceof Long)) {
+            throw new BadRequestException("Поле " + field + " должно быть целым числом");
+        }
+        return (Long) value;
+    }
+
+    private static TaskStatus status(Map<String, Object> body) {
+        try {
+            return TaskStatus.valueOf(text(body, "status"));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Неизвестный статус " + body.get("status"));
+        }
+    }
+
+    private static LocalDateTime time(Map<String, Object> body, String field) {
+        try {
+            return LocalDateTime.parse(text(body, field));
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Поле " + field + " должно быть датой вида 2025-01-01T09:00");
+        }
+    }
+
+    // Сегменты пути или null, если первый не совпадает с контекстом: HttpServer выбирает контекст
+    // по префиксу строки, и /tasksX тоже попадает в /tasks
+    private static String[] segments(HttpExchange exchange) {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String context = exchange.getHttpContext().getPath().substring(1);
+        return path.length > 1 && path[1].equals(context) ? path : null;
+    }
+
+    private static Integer parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Некорректный id: " + value);
+        }
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return JsonReader.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static void sendTask(HttpExchange exchange, int code, Task task) throws IOException {
+        if (task == null) {
+            sendError(exchange, 404, "Задача не найдена");
+            return;
+        }
+        JsonWriter json = begin(exchange, code);
+        json.writeTask(task);
+        json.flush();
+    }
+
+    private static void sendTasks(HttpExchange exchange, int code, Iterable<? extends Task> tasks)
+            throws IOException {
+        JsonWriter json = begin(exchange, code);
+        json.writeTasks(tasks);
+        json.flush();
+    }
+
+    private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        JsonWriter json = begin(exchange, code);
+        json.writeError(message);
+        json.flush();
+    }
+
+    private static void send(HttpExchange exchange, int code) throws IOException {
+        exchange.sendResponseHeaders(code, NO_BODY);
+    }
+
+    private static JsonWriter begin(HttpExchange exchange, int code) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, CHUNKED);
+        Writer body = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        return new JsonWriter(body);
+    }
+
+    private static final class BadRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package typesoftasks.http;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Разбор тела запроса. Объект становится Map, массив — List, число — Long или Double,
+// строки, true/false и null — соответствующими значениями Java.
+final class JsonReader {
+
+    private final String text;
+    private int position;
+
+    private JsonReader(String text) {
+        this.text = text;
+    }
+
+    static Map<String, Object> parseObject(String text) {
+        JsonReader reader = new JsonReader(text);
+        reader.skipWhitespace();
+        if (reader.peek() != '{') {
+            throw reader.error("ожидался объект");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) reader.value();
+        reader.skipWhitespace();
+        if (reader.position != text.length()) {
+            throw reader.error("лишние символы после объекта");
+        }
+        return result;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        char c = peek();
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                literal("true");
+                return Boolean.TRUE;
+            case 'f':
+                literal("false");
+                return Boolean.FALSE;
+            case 'n':
+                literal("null");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("неожиданный символ '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return result;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("ожидалось имя поля");
+            }
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            result.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+                continue;
+            }
+            expect('}');
+            return result;
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> result = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return result;
+        }
+        while (true) {
+            result.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+                continue;
+            }
+            expect(']');
+            return result;
+        }
+    }
+
+    private String string() {
+        position++;
+        StringBuilder result = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return result.toString();
+            }
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("обрезанная последовательность \\u");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("некорректная последовательность \\u");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    result.append(escaped);
+            }
+        }
+    }
+
+    private Number number() {
+        int start = position;
+        boolean fraction = false;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                fraction = true;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String number = text.substring(start, position);
+        try {
+            return fraction ? (Number) Double.parseDouble(number) : (Number) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("некорректное число " + number);
+        }
+    }
+
+    private void literal(String expected) {
+        if (!text.startsWith(expected, position)) {
+            throw error("ожидалось " + expected);
+        }
+        position += expected.length();
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("ожидался символ '" + expected + "'");
+        }
+        position++;
+    }
+
+    private char peek() {
+        if (position >= text.length()) {
+            throw error("неожиданный конец");
+        }
+        return text.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Некорректный JSON в позиции " + position + ": " + message);
+    }
+}
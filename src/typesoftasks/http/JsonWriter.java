@@ -0,0 +1,186 @@
+package typesoftasks.http;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+// Пишет JSON прямо в поток ответа через собственный буфер, без промежуточных строк и дерева объектов.
+// Запятые между элементами массива расставляются сами. Перед закрытием Writer нужно вызвать flush().
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final char[] buffer = new char[8192];
+    private int length;
+    private boolean first = true;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void beginArray() throws IOException {
+        put('[');
+        first = true;
+    }
+
+    public void endArray() throws IOException {
+        put(']');
+        first = false;
+    }
+
+    public void writeTasks(Iterable<? extends Task> tasks) throws IOException {
+        beginArray();
+        for (Task task : tasks) {
+            writeTask(task);
+        }
+        endArray();
+    }
+
+    public void writeTask(Task task) throws IOException {
+        separate();
+        put("{\"id\":");
+        putLong(task.getId());
+        put(",\"type\":\"");
+        put(task.getType().name());
+        put("\",\"title\":");
+        putString(task.getTitle());
+        put(",\"description\":");
+        putString(task.getDescription());
+        put(",\"status\":\"");
+        put(task.getStatus().name());
+        put("\",\"version\":");
+        putLong(task.getVersion());
+        put(",\"duration\":");
+        if (task.getDuration() != null) {
+            putLong(task.getDuration().toMinutes());
+        } else {
+            put("null");
+        }
+        put(",\"startTime\":");
+        putTime(task.getStartTime());
+        put(",\"endTime\":");
+        putTime(task.getEndTime());
+        if (task instanceof Subtask) {
+            put(",\"epicId\":");
+            putLong(((Subtask) task).getEpicId());
+        } else if (task instanceof Epic) {
+            put(",\"subtasks\":[");
+            boolean firstId = true;
+            for (int id : ((Epic) task).getSubtasks()) {
+                if (!firstId) {
+                    put(',');
+                }
+                putLong(id);
+                firstId = false;
+            }
+            put(']');
+        }
+        put('}');
+        first = false;
+    }
+
+    public void writeError(String message) throws IOException {
+        separate();
+        put("{\"error\":");
+        putString(message);
+        put('}');
+        first = false;
+    }
+
+    public void flush() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        out.flush();
+    }
+
+    private void separate() throws IOException {
+        if (!first) {
+            put(',');
+        }
+    }
+
+    private void putTime(LocalDateTime time) throws IOException {
+        if (time == null) {
+            put("null");
+            return;
+        }
+        put('"');
+        put(time.toString());
+        put('"');
+    }
+
+    private void putString(String value) throws IOException {
+        if (value == null) {
+            put("null");
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    put("\\\"");
+                    break;
+                case '\\':
+                    put("\\\\");
+                    break;
+                case '\n':
+                    put("\\n");
+                    break;
+                case '\r':
+                    put("\\r");
+                    break;
+                case '\t':
+                    put("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        put("\\u00");
+                        put(HEX[c >> 4]);
+                        put(HEX[c & 0xF]);
+                    } else {
+                        put(c);
+                    }
+            }
+        }
+        put('"');
+    }
+
+    private void putLong(long value) throws IOException {
+        put(Long.toString(value));
+    }
+
+    private void put(String value) throws IOException {
+        int from = 0;
+        int remaining = value.length();
+        while (remaining > 0) {
+            if (length == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(remaining, buffer.length - length);
+            value.getChars(from, from + chunk, buffer, length);
+            length += chunk;
+            from += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (length == buffer.length) {
+            drain();
+        }
+        buffer[length++] = c;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+}
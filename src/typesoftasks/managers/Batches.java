@@ -0,0 +1,93 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.util.IntLinkedSet;
+import typesoftasks.util.IntObjectMap;
+import typesoftasks.util.StringPool;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+// Общая проверка пакетных операций: всё проверяется до первого изменения, чтобы пакет применялся целиком или никак.
+final class Batches {
+
+    private Batches() {
+    }
+
+    // Пересечения внутри пакета ищутся сортировкой и одним проходом,
+    // пересечения с уже запланированными задачами — по индексу, пропуская задачи, которые пакет заменяет.
+    static void checkOverlaps(Collection<? extends Task> batch, IntervalIndex index, IntPredicate replaced) {
+        List<Task> timed = new ArrayList<>();
+        for (Task task : batch) {
+            if (!(task instanceof Epic) && task.getStartTime() != null && task.getEndTime() != null) {
+                timed.add(task);
+            }
+        }
+        timed.sort(Comparator.comparing(Task::getStartTime));
+
+        LocalDateTime reach = null;
+        for (Task task : timed) {
+            if (reach != null && task.getStartTime().isBefore(reach)) {
+                throw new IllegalArgumentException("Задачи пакета пересекаются по времени.");
+            }
+            if (reach == null || task.getEndTime().isAfter(reach)) {
+                reach = task.getEndTime();
+            }
+            for (Task other : index.overlapping(task.getStartTime(), task.getEndTime())) {
+                if (!replaced.test(other.getId())) {
+                    throw new IllegalArgumentException(
+                            "Задача пакета пересекается по времени с задачей " + other.getId() + ".");
+                }
+            }
+        }
+    }
+
+    static IntLinkedSet uniqueIds(Collection<? extends Task> batch) {
+        IntLinkedSet ids = new IntLinkedSet(batch.size());
+        for (Task task : batch) {
+            if (!ids.add(task.getId())) {
+                throw new IllegalArgumentException("Задача " + task.getId() + " встречается в пакете дважды.");
+            }
+        }
+        return ids;
+    }
+
+    // Подзадача черновика может ссылаться на эпик из того же пакета по id его черновика
+    static IntObjectMap<Epic> draftEpics(Collection<? extends Task> drafts) {
+        IntObjectMap<Epic> result = new IntObjectMap<>();
+        for (Task draft : drafts) {
+            if (draft instanceof Epic && result.put(draft.getId(), (Epic) draft) != null) {
+                throw new IllegalArgumentException("Эпик " + draft.getId() + " встречается в пакете дважды.");
+            }
+        }
+        return result;
+    }
+
+    static void checkEpicsExist(Collection<? extends Task> drafts, IntObjectMap<Epic> draftEpics,
+                                IntPredicate epicExists) {
+        for (Task draft : drafts) {
+            if (draft instanceof Subtask) {
+                int epicId = ((Subtask) draft).getEpicId();
+                if (!draftEpics.containsKey(epicId) && !epicExists.test(epicId)) {
+                    throw new IllegalArgumentException("Эпик " + epicId + " для подзадачи не найден.");
+                }
+            }
+        }
+    }
+
+    static Task copy(Task draft, int id, StringPool strings) {
+        return new Task(id, strings.intern(draft.getTitle()), strings.intern(draft.getDescriptionText()),
+                draft.getStatus(), draft.getDuration(), draft.getStartTime(), Task.FIRST_VERSION);
+    }
+
+    static Subtask copy(Task draft, int id, int epicId, StringPool strings) {
+        return new Subtask(id, strings.intern(draft.getTitle()), strings.intern(draft.getDescriptionText()), epicId,
+                draft.getStatus(), draft.getDuration(), draft.getStartTime(), Task.FIRST_VERSION);
+    }
+}
@@ -0,0 +1,231 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+import typesoftasks.util.StringPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// Формат (big-endian):
+//   int magic, short version, int recordCount,
+//   recordCount x [int id, byte type, byte status, int epicId, long durationMinutes,
+//                  long startEpochMinute, long taskVersion, int titleLength, int descriptionLength,
+//                  title, description],
+//   int historyCount, historyCount x int id,
+//   строка с контрольной суммой SnapshotFile.
+// Строки в UTF-8, длина -1 означает null, NO_VALUE означает отсутствующее время.
+// В снимках версии 1 нет поля taskVersion, такие задачи читаются первой версией;
+// контрольная сумма обязательна начиная с версии 3.
+public final class BinarySnapshot {
+
+    static final int MAGIC = 0x4B4E424E;
+    static final short VERSION = 3;
+    private static final short VERSION_WITHOUT_TASK_VERSIONS = 1;
+    private static final short VERSION_WITHOUT_CHECKSUM = 2;
+
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final int RECORD_HEADER_BYTES = 42;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinarySnapshot() {
+    }
+
+    public static void convertCsv(File csv, File binary) {
+        write(FileBackedTaskManager.loadFromFile(csv), binary);
+    }
+
+    public static void write(InMemoryTaskManager manager, File target) {
+        write(manager, target, FsyncPolicy.DATA);
+    }
+
+    public static void write(InMemoryTaskManager manager, File target, FsyncPolicy policy) {
+        try {
+            SnapshotFile.write(target, policy, channel -> writeBody(manager, channel));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении бинарного снимка", e);
+        }
+    }
+
+    private static void writeBody(InMemoryTaskManager manager, WritableByteChannel channel) throws IOException {
+        Writer writer = new Writer(channel);
+        writer.ensure(Integer.BYTES + Short.BYTES + Integer.BYTES);
+        writer.buffer.putInt(MAGIC);
+        writer.buffer.putShort(VERSION);
+        writer.buffer.putInt(manager.getTaskMap().size() + manager.getEpicMap().size()
+                + manager.getSubtaskMap().size());
+
+        writeAll(writer, manager.getTaskMap().values());
+        writeAll(writer, manager.getEpicMap().values());
+        writeAll(writer, manager.getSubtaskMap().values());
+
+        List<Task> history = manager.getHistory();
+        writer.ensure(Integer.BYTES);
+        writer.buffer.putInt(history.size());
+        for (Task task : history) {
+            writer.ensure(Integer.BYTES);
+            writer.buffer.putInt(task.getId());
+        }
+        writer.drain();
+    }
+
+    private static void writeAll(Writer writer, Collection<? extends Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            byte[] title = encode(task.getTitle());
+            byte[] description = DescriptionStore.bytesForSave(task.getDescriptionText());
+
+            writer.ensure(RECORD_HEADER_BYTES);
+            ByteBuffer buffer = writer.buffer;
+            buffer.putInt(task.getId());
+            buffer.put((byte) task.getType().ordinal());
+            buffer.put((byte) task.getStatus().ordinal());
+            buffer.putInt(task instanceof Subtask ? ((Subtask) task).getEpicId() : 0);
+            buffer.putLong(task.getDuration() != null ? task.getDuration().toMinutes() : NO_VALUE);
+            buffer.putLong(task.getStartTime() != null
+                    ? task.getStartTime().toEpochSecond(ZoneOffset.UTC) / 60 : NO_VALUE);
+            buffer.putLong(task.getVersion());
+            buffer.putInt(title != null ? title.length : -1);
+            buffer.putInt(description != null ? description.length : -1);
+            writer.put(title);
+            writer.put(description);
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    static void read(File source, Consumer<Task> tasks, IntConsumer history) {
+        read(source, StringPool.NOOP, tasks, history);
+    }
+
+    static void read(File source, StringPool strings, Consumer<Task> tasks, IntConsumer history) {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < Integer.BYTES + Short.BYTES || buffer.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является бинарным снимком: " + source);
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != VERSION_WITHOUT_CHECKSUM
+                    && version != VERSION_WITHOUT_TASK_VERSIONS) {
+                throw new ManagerSaveException("Неподдерживаемая версия бинарного снимка: " + version);
+            }
+            // Старые версии записаны до появления суммы, текущая без неё считается обрезанной
+            if (version == VERSION) {
+                buffer.limit(SnapshotFile.verify(buffer, source, true));
+            }
+
+            byte[] scratch = new byte[256];
+            boolean hasTaskVersions = version != VERSION_WITHOUT_TASK_VERSIONS;
+            int recordCount = buffer.getInt();
+            for (int i = 0; i < recordCount; i++) {
+                int id = buffer.getInt();
+                TaskType type = TYPES[buffer.get()];
+                TaskStatus status = STATUSES[buffer.get()];
+                int epicId = buffer.getInt();
+                long durationMinutes = buffer.getLong();
+                long startMinute = buffer.getLong();
+                long taskVersion = hasTaskVersions ? buffer.getLong() : Task.FIRST_VERSION;
+                int titleLength = buffer.getInt();
+                int descriptionLength = buffer.getInt();
+
+                if (scratch.length < Math.max(titleLength, descriptionLength)) {
+                    scratch = new byte[Math.max(titleLength, descriptionLength)];
+                }
+                String title = strings.intern(decode(buffer, titleLength, scratch));
+                String description = strings.intern(decode(buffer, descriptionLength, scratch));
+
+                Duration duration = durationMinutes != NO_VALUE ? Duration.ofMinutes(durationMinutes) : null;
+                LocalDateTime startTime = startMinute != NO_VALUE
+                        ? LocalDateTime.ofEpochSecond(startMinute * 60, 0, ZoneOffset.UTC) : null;
+                switch (type) {
+                    case EPIC:
+                        tasks.accept(new Epic(id, title, description, taskVersion));
+                        break;
+                    case SUBTASK:
+                        tasks.accept(new Subtask(id, title, description, epicId, status, duration, startTime,
+                                taskVersion));
+                        break;
+                    default:
+                        tasks.accept(new Task(id, title, description, status, duration, startTime, taskVersion));
+                }
+            }
+
+            int historyCount = buffer.getInt();
+            for (int i = 0; i < historyCount; i++) {
+                history.accept(buffer.getInt());
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new ManagerSaveException("Бинарный снимок повреждён: " + source, e);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении бинарного снимка", e);
+        }
+    }
+
+    private static String decode(ByteBuffer buffer, int length, byte[] scratch) {
+        if (length < 0) {
+            return null;
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                return;
+            }
+            if (bytes.length > buffer.capacity()) {
+                drain();
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                return;
+            }
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
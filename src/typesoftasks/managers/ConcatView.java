@@ -0,0 +1,53 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Task;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Живое представление нескольких коллекций одной последовательностью, без копирования.
+final class ConcatView extends AbstractCollection<Task> {
+
+    private final List<Collection<? extends Task>> parts;
+
+    ConcatView(List<Collection<? extends Task>> parts) {
+        this.parts = parts;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int part;
+            private Iterator<? extends Task> current = parts.isEmpty() ? null : parts.get(0).iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (current != null && !current.hasNext()) {
+                    part++;
+                    current = part < parts.size() ? parts.get(part).iterator() : null;
+                }
+                return current != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Collection<? extends Task> part : parts) {
+            size += part.size();
+        }
+        return size;
+    }
+}
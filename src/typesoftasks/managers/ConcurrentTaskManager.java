@@ -0,0 +1,244 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Логика целиком в InMemoryTaskManager, здесь только блокировки — как FileBackedTaskManager добавляет
+// к ней только сохранение. Хранилище, расписание, агрегаты эпиков и индексы статусов и поиска однопоточные,
+// поэтому изменения, в том числе пакетные, идут по одному под блокировкой записи и применяются целиком,
+// а чтения идут параллельно под блокировкой чтения. Чтения с записью в историю тоже под блокировкой чтения:
+// история и публикация событий потокобезопасны сами, а удаление задачи с чтением не пересекается.
+// События о задаче публикуются под блокировкой её изменения, поэтому идут в порядке изменений.
+// Живые коллекции однопоточного хранилища нельзя обходить параллельно с записью, поэтому представления —
+// снимки на момент вызова.
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ConcurrentTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    // История читается без блокировок менеджера, поэтому должна быть потокобезопасной
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager);
+    }
+
+    private <T> T read(Supplier<T> action) {
+        return locked(lock.readLock(), action);
+    }
+
+    private <T> T write(Supplier<T> action) {
+        return locked(lock.writeLock(), action);
+    }
+
+    private void write(Runnable action) {
+        locked(lock.writeLock(), () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <T> T locked(Lock held, Supplier<T> action) {
+        held.lock();
+        try {
+            return action.get();
+        } finally {
+            held.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getOverlappingTasks(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(super::getPrioritizedTasks);
+    }
+
+    // Копия из отсортированного множества строится за O(n), без сравнений
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return Collections.unmodifiableNavigableSet(read(() -> new TreeSet<>(super.getPrioritizedTasksView())));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> super.getPrioritizedTasksBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Task cursor, int limit) {
+        return read(() -> super.getPrioritizedTasksAfter(cursor, limit));
+    }
+
+    @Override
+    public Task createTask(String title, String description) {
+        return write(() -> super.createTask(title, description));
+    }
+
+    @Override
+    public Epic createEpic(String title, String description) {
+        return write(() -> super.createEpic(title, description));
+    }
+
+    @Override
+    public Subtask createSubtask(String title, String description, int epicId) {
+        return write(() -> super.createSubtask(title, description, epicId));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> super.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(() -> super.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> super.getSubtaskById(id));
+    }
+
+    @Override
+    public Task find(int id) {
+        return read(() -> super.find(id));
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        return write(() -> super.updateTask(task));
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return write(() -> super.updateEpic(epic));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        return write(() -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(super::getAllTasks);
+    }
+
+    @Override
+    public Collection<Task> getAllTasksView() {
+        return Collections.unmodifiableList(getAllTasks());
+    }
+
+    @Override
+    public Collection<Epic> getAllEpics() {
+        return read(() -> List.copyOf(super.getAllEpics()));
+    }
+
+    @Override
+    public Collection<Subtask> getAllSubtasks() {
+        return read(() -> List.copyOf(super.getAllSubtasks()));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        return read(() -> super.getSubtasksByEpic(epicId));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        write(() -> super.deleteTaskById(id));
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        write(() -> super.deleteEpicById(id));
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        write(() -> super.deleteSubtaskById(id));
+    }
+
+    @Override
+    public List<Task> createAll(Collection<? extends Task> drafts) {
+        return write(() -> super.createAll(drafts));
+    }
+
+    @Override
+    public List<Task> updateAll(Collection<? extends Task> items) {
+        return write(() -> super.updateAll(items));
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        write(() -> super.deleteAll(ids));
+    }
+
+    @Override
+    public void deleteAllSubtasksOf(int epicId) {
+        write(() -> super.deleteAllSubtasksOf(epicId));
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        return read(() -> super.getByStatus(status));
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        return read(() -> super.getByTypeAndStatus(type, status));
+    }
+
+    @Override
+    public int countByStatus(TaskStatus status) {
+        return read(() -> super.countByStatus(status));
+    }
+
+    @Override
+    public int countByTypeAndStatus(TaskType type, TaskStatus status) {
+        return read(() -> super.countByTypeAndStatus(type, status));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> super.search(query, limit));
+    }
+
+    @Override
+    SearchIndex.Statistics searchStatistics(String query) {
+        return read(() -> super.searchStatistics(query));
+    }
+
+    @Override
+    List<SearchIndex.Hit> searchHits(String query, int limit, SearchIndex.Statistics statistics) {
+        return read(() -> super.searchHits(query, limit, statistics));
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        write(() -> super.updateEpicStatus(epic));
+    }
+}
@@ -0,0 +1,335 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+import typesoftasks.util.StringPool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CsvTaskReader {
+
+    private static final int EOF = -1;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final Reader in;
+    private final StringPool strings;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int pushedBack = EOF;
+    private boolean hasPushedBack;
+
+    private char[] field = new char[64];
+    private int fieldLength;
+
+    public CsvTaskReader(Reader in) {
+        this(in, StringPool.NOOP);
+    }
+
+    public CsvTaskReader(Reader in, StringPool strings) {
+        this.in = in;
+        this.strings = strings;
+    }
+
+    public boolean skipLine() throws IOException {
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+        while (c != EOF && c != '\n') {
+            c = read();
+        }
+        return true;
+    }
+
+    public Task next() throws IOException {
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+        if (c == '\r' || c == '\n') {
+            if (c == '\r') {
+                skipLineFeed();
+            }
+            return null;
+        }
+        unread(c);
+
+        int id = 0;
+        TaskType type = null;
+        TaskStatus status = null;
+        String title = null;
+        String description = null;
+        int epicId = 0;
+        Duration duration = null;
+        LocalDateTime startTime = null;
+        // В файлах до появления версий колонки нет — сохранённая задача считается первой версией
+        long version = Task.FIRST_VERSION;
+
+        int index = 0;
+        int terminator;
+        do {
+            terminator = readField();
+            switch (index) {
+                case 0:
+                    id = (int) parseLong();
+                    break;
+                case 1:
+                    type = TYPES[matchEnum(TYPES)];
+                    break;
+                case 2:
+                    title = strings.intern(field, 0, fieldLength);
+                    break;
+                case 3:
+                    status = STATUSES[matchEnum(STATUSES)];
+                    break;
+                case 4:
+                    description = strings.intern(field, 0, fieldLength);
+                    break;
+                case 5:
+                    if (fieldLength > 0) {
+                        epicId = (int) parseLong();
+                    }
+                    break;
+                case 6:
+                    if (fieldLength > 0) {
+                        duration = Duration.ofMinutes(parseLong());
+                    }
+                    break;
+                case 7:
+                    if (fieldLength > 0) {
+                        startTime = parseDateTime();
+                    }
+                    break;
+                case 8:
+                    if (fieldLength > 0) {
+                        version = parseLong();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            index++;
+        } while (terminator == ',');
+
+        if (index < 5) {
+            throw new IllegalArgumentException("Некорректная строка CSV для задачи " + id);
+        }
+
+        switch (type) {
+            case TASK:
+                return new Task(id, title, description, status, duration, startTime, version);
+            case EPIC:
+                // Статус и время эпика пересчитаются по его подзадачам
+                return new Epic(id, title, description, version);
+            case SUBTASK:
+                return new Subtask(id, title, description, epicId, status, duration, startTime, version);
+            default:
+                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    public List<Integer> readIds() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        int terminator;
+        do {
+            terminator = readField();
+            if (!isBlankField()) {
+                ids.add((int) parseLong());
+            }
+        } while (terminator == ',');
+        return ids;
+    }
+
+    private int readField() throws IOException {
+        fieldLength = 0;
+        int c = read();
+        if (c == '"') {
+            while (true) {
+                c = read();
+                if (c == EOF) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в CSV");
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        break;
+                    }
+                }
+                append((char) c);
+            }
+        } else {
+            while (c != ',' && c != '\n' && c != '\r' && c != EOF) {
+                append((char) c);
+                c = scanPlain();
+            }
+        }
+        if (c == '\r') {
+            skipLineFeed();
+            return '\n';
+        }
+        if (c != ',' && c != '\n' && c != EOF) {
+            throw new IllegalArgumentException("Лишние символы после кавычки в CSV");
+        }
+        return c;
+    }
+
+    // Копирует подряд идущие обычные символы прямо из буфера и возвращает первый особый символ.
+    private int scanPlain() throws IOException {
+        if (hasPushedBack) {
+            return read();
+        }
+        int start = position;
+        int end = limit;
+        char[] chars = buffer;
+        int i = start;
+        while (i < end) {
+            char c = chars[i];
+            if (c == ',' || c == '\n' || c == '\r' || c == '"') {
+                break;
+            }
+            i++;
+        }
+        int count = i - start;
+        if (count > 0) {
+            if (fieldLength + count > field.length) {
+                char[] grown = new char[Math.max(field.length * 2, fieldLength + count)];
+                System.arraycopy(field, 0, grown, 0, fieldLength);
+                field = grown;
+            }
+            System.arraycopy(chars, start, field, fieldLength, count);
+            fieldLength += count;
+            position = i;
+        }
+        return read();
+    }
+
+    private void append(char c) {
+        if (fieldLength == field.length) {
+            char[] grown = new char[field.length * 2];
+            System.arraycopy(field, 0, grown, 0, fieldLength);
+            field = grown;
+        }
+        field[fieldLength++] = c;
+    }
+
+    private boolean isBlankField() {
+        for (int i = 0; i < fieldLength; i++) {
+            if (!Character.isWhitespace(field[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong() {
+        int start = 0;
+        int end = fieldLength;
+        while (start < end && Character.isWhitespace(field[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(field[end - 1])) {
+            end--;
+        }
+        boolean negative = start < end && field[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Ожидалось число: " + new String(field, 0, fieldLength));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = field[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Ожидалось число: " + new String(field, 0, fieldLength));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private LocalDateTime parseDateTime() {
+        char[] f = field;
+        boolean simple = (fieldLength == 16 || fieldLength == 19)
+                && f[4] == '-' && f[7] == '-' && f[10] == 'T' && f[13] == ':'
+                && (fieldLength == 16 || f[16] == ':');
+        if (simple) {
+            int year = digits(0, 4);
+            int month = digits(5, 2);
+            int day = digits(8, 2);
+            int hour = digits(11, 2);
+            int minute = digits(14, 2);
+            int second = fieldLength == 19 ? digits(17, 2) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(CharBuffer.wrap(field, 0, fieldLength));
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = field[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private int matchEnum(Enum<?>[] values) {
+        for (Enum<?> value : values) {
+            String name = value.name();
+            if (name.length() != fieldLength) {
+                continue;
+            }
+            boolean same = true;
+            for (int i = 0; i < fieldLength && same; i++) {
+                same = name.charAt(i) == field[i];
+            }
+            if (same) {
+                return value.ordinal();
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + new String(field, 0, fieldLength));
+    }
+
+    private void skipLineFeed() throws IOException {
+        int c = read();
+        if (c != '\n') {
+            unread(c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (hasPushedBack) {
+            hasPushedBack = false;
+            return pushedBack;
+        }
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+        hasPushedBack = true;
+    }
+}
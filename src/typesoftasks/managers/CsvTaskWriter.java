@@ -0,0 +1,189 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Строки копируются посимвольно во внутренний буфер, который сбрасывается в Writer целыми блоками.
+// Перед закрытием Writer нужно вызвать flush().
+public final class CsvTaskWriter {
+
+    public static final String HEADER = "id,type,title,status,description,epic,duration,startTime,version";
+
+    private final Writer out;
+    private final char[] buffer = new char[8192];
+    private int length;
+
+    public CsvTaskWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeHeader() throws IOException {
+        put(HEADER);
+        put('\n');
+    }
+
+    public void write(Task task) throws IOException {
+        putLong(task.getId());
+        put(',');
+        put(task.getType().name());
+        put(',');
+        putText(task.getTitle());
+        put(',');
+        put(task.getStatus().name());
+        put(',');
+        putText(DescriptionStore.textForSave(task.getDescriptionText()));
+        put(',');
+        if (task instanceof Subtask) {
+            putLong(((Subtask) task).getEpicId());
+        }
+        put(',');
+        Duration duration = task.getDuration();
+        if (duration != null) {
+            putLong(duration.toMinutes());
+        }
+        put(',');
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime != null) {
+            putDateTime(startTime);
+        }
+        put(',');
+        putLong(task.getVersion());
+        put('\n');
+    }
+
+    public void endTasks() throws IOException {
+        put('\n');
+    }
+
+    public void writeIds(Iterable<? extends Task> tasks) throws IOException {
+        boolean first = true;
+        for (Task task : tasks) {
+            if (!first) {
+                put(',');
+            }
+            putLong(task.getId());
+            first = false;
+        }
+    }
+
+    public void flush() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    private void putText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            put(value);
+            return;
+        }
+        put('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        put('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putDateTime(LocalDateTime time) throws IOException {
+        int year = time.getYear();
+        if (year < 0 || year > 9999 || time.getNano() != 0) {
+            put(time.toString());
+            return;
+        }
+        ensure(19);
+        put4(year);
+        buffer[length++] = '-';
+        put2(time.getMonthValue());
+        buffer[length++] = '-';
+        put2(time.getDayOfMonth());
+        buffer[length++] = 'T';
+        put2(time.getHour());
+        buffer[length++] = ':';
+        put2(time.getMinute());
+        buffer[length++] = ':';
+        put2(time.getSecond());
+    }
+
+    private void put4(int value) {
+        put2(value / 100);
+        put2(value % 100);
+    }
+
+    private void put2(int value) {
+        buffer[length++] = (char) ('0' + value / 10);
+        buffer[length++] = (char) ('0' + value % 10);
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value));
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int pos = length + digits;
+        length = pos;
+        do {
+            buffer[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void put(String value) throws IOException {
+        int from = 0;
+        int remaining = value.length();
+        while (remaining > 0) {
+            if (length == buffer.length) {
+                flush();
+            }
+            int chunk = Math.min(remaining, buffer.length - length);
+            value.getChars(from, from + chunk, buffer, length);
+            length += chunk;
+            from += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (length == buffer.length) {
+            flush();
+        }
+        buffer[length++] = c;
+    }
+
+    private void ensure(int chars) throws IOException {
+        if (buffer.length - length < chars) {
+            flush();
+        }
+    }
+}
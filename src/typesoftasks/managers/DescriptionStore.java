@@ -0,0 +1,213 @@
+package typesoftasks.managers;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Описания загруженных задач, вынесенные в отдельный файл: задача держит только смещение и длину,
+// текст читается при обращении и остаётся в LRU-кэше, пока суммарный размер кэша не превысит лимит.
+// Файл — производные данные: он пересоздаётся при каждой загрузке и удаляется при закрытии,
+// после чего вынесенные описания недоступны и их чтение бросает IllegalStateException.
+// Сохранение берёт байты описаний прямо из файла мимо кэша (см. bytesForSave).
+final class DescriptionStore implements Closeable {
+
+    // Короткое описание занимает в памяти меньше, чем ссылка на него
+    static final int INLINE_LIMIT = 32;
+
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    private final long cacheLimit;
+    private final LinkedHashMap<Ref, String> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER);
+    private long written;
+    private long cachedChars;
+    private long hits;
+    private long reads;
+
+    DescriptionStore(File file, long cacheLimit) {
+        if (cacheLimit <= 0) {
+            throw new IllegalArgumentException("Размер кэша описаний должен быть положительным");
+        }
+        this.file = file;
+        this.cacheLimit = cacheLimit;
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при создании файла описаний", e);
+        }
+    }
+
+    // Длинный текст уходит в файл и заодно в кэш: задачу сразу после загрузки индексирует поиск
+    synchronized CharSequence offload(String text) {
+        if (text == null || text.length() < INLINE_LIMIT) {
+            return text;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Ref ref = new Ref(this, written + pending.position(), bytes.length);
+        try {
+            if (bytes.length > pending.remaining()) {
+                flushPending();
+            }
+            if (bytes.length > pending.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes), written);
+                written += bytes.length;
+            } else {
+                pending.put(bytes);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи файла описаний", e);
+        }
+        remember(ref, text);
+        return ref;
+    }
+
+    // Текст описания для записи: вынесенный копируется из файла, не трогая кэш, иначе сохранение всех задач
+    // читало бы каждое описание через LRU и вытесняло бы из него недавно прочитанные
+    static String textForSave(CharSequence description) {
+        if (description instanceof Ref) {
+            return new String(bytesForSave(description), StandardCharsets.UTF_8);
+        }
+        return description != null ? description.toString() : null;
+    }
+
+    // То же в UTF-8: для вынесенного описания — байты из файла как есть, без декодирования
+    static byte[] bytesForSave(CharSequence description) {
+        if (description instanceof Ref) {
+            Ref ref = (Ref) description;
+            return ref.store.copy(ref);
+        }
+        return description != null ? description.toString().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    synchronized String read(Ref ref) {
+        checkOpen();
+        String text = cache.get(ref);
+        if (text != null) {
+            hits++;
+            return text;
+        }
+        reads++;
+        text = new String(readBytes(ref), StandardCharsets.UTF_8);
+        remember(ref, text);
+        return text;
+    }
+
+    private synchronized byte[] copy(Ref ref) {
+        checkOpen();
+        return readBytes(ref);
+    }
+
+    private void checkOpen() {
+        if (!channel.isOpen()) {
+            throw new IllegalStateException("Описание недоступно: менеджер закрыт и файл описаний удалён");
+        }
+    }
+
+    private byte[] readBytes(Ref ref) {
+        ByteBuffer bytes = ByteBuffer.allocate(ref.length);
+        try {
+            if (ref.offset + ref.length > written) {
+                flushPending();
+            }
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, ref.offset + bytes.position()) < 0) {
+                    throw new ManagerSaveException("Файл описаний обрезан: " + file);
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении описания", e);
+        }
+        return bytes.array();
+    }
+
+    private void remember(Ref ref, String text) {
+        if (text.length() > cacheLimit) {
+            return;
+        }
+        cache.put(ref, text);
+        cachedChars += text.length();
+        Iterator<Map.Entry<Ref, String>> eldest = cache.entrySet().iterator();
+        while (cachedChars > cacheLimit) {
+            cachedChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    private void flushPending() throws IOException {
+        pending.flip();
+        writeFully(pending, written);
+        written += pending.limit();
+        pending.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes, long position) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+    }
+
+    synchronized long getCachedChars() {
+        return cachedChars;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    // Обращения, которые не нашли текст в кэше и читали файл
+    synchronized long getReads() {
+        return reads;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        cachedChars = 0;
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    // Сравнивается по ссылке: копии задачи делят один Ref, поэтому и одну запись кэша
+    static final class Ref implements CharSequence {
+        private final DescriptionStore store;
+        private final long offset;
+        private final int length;
+
+        private Ref(DescriptionStore store, long offset, int length) {
+            this.store = store;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return store.read(this);
+        }
+    }
+}
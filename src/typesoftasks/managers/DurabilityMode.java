@@ -0,0 +1,7 @@
+package typesoftasks.managers;
+
+public enum DurabilityMode {
+    SYNC,
+    GROUP_COMMIT,
+    ON_DEMAND
+}
@@ -0,0 +1,104 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.util.IntObjectMap;
+import typesoftasks.util.IntSnapshotSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+// Изменяемые агрегаты эпика, которыми владеет менеджер: по ним собираются неизменяемые снимки Epic.
+// Вклад подзадачи — это сам неизменяемый снимок подзадачи, учтённый в агрегатах.
+// Менять агрегат можно только под той же защитой, что и сохранённый снимок эпика.
+final class EpicAggregate {
+
+    private final IntSnapshotSet subtaskIds = new IntSnapshotSet();
+    private final IntObjectMap<Subtask> contributions = new IntObjectMap<>();
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private Duration totalDuration = Duration.ZERO;
+
+    void apply(Subtask subtask) {
+        Subtask previous = contributions.put(subtask.getId(), subtask);
+        if (previous == null) {
+            subtaskIds.add(subtask.getId());
+        } else {
+            subtract(previous);
+        }
+        add(subtask);
+    }
+
+    void remove(int subtaskId) {
+        Subtask previous = contributions.remove(subtaskId);
+        if (previous != null) {
+            subtaskIds.remove(subtaskId);
+            subtract(previous);
+        }
+    }
+
+    void clear() {
+        subtaskIds.clear();
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        totalDuration = Duration.ZERO;
+        startTimes.clear();
+        endTimes.clear();
+    }
+
+    int[] subtaskIds() {
+        return subtaskIds.toArray();
+    }
+
+    TaskStatus status() {
+        int total = contributions.size();
+        if (total == 0 || statusCounts[TaskStatus.NEW.ordinal()] == total) {
+            return TaskStatus.NEW;
+        }
+        if (statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    // Снимок эпика с заголовком, описанием и версией base и выведенными из подзадач полями
+    Epic snapshot(Epic base, long version) {
+        return new Epic(base.getId(), base.getTitle(), base.getDescriptionText(), version, status(),
+                totalDuration, startTimes.isEmpty() ? null : startTimes.firstKey(),
+                endTimes.isEmpty() ? null : endTimes.lastKey(), subtaskIds.snapshot(), statusCounts);
+    }
+
+    private void add(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]++;
+        if (subtask.getDuration() != null) {
+            totalDuration = totalDuration.plus(subtask.getDuration());
+        }
+        increment(startTimes, subtask.getStartTime());
+        increment(endTimes, subtask.getEndTime());
+    }
+
+    private void subtract(Subtask subtask) {
+        statusCounts[subtask.getStatus().ordinal()]--;
+        if (subtask.getDuration() != null) {
+            totalDuration = totalDuration.minus(subtask.getDuration());
+        }
+        decrement(startTimes, subtask.getStartTime());
+        decrement(endTimes, subtask.getEndTime());
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> times, LocalDateTime time) {
+        if (time != null) {
+            times.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
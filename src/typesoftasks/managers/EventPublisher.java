@@ -0,0 +1,65 @@
+package typesoftasks.managers;
+
+import typesoftasks.metrics.Counter;
+import typesoftasks.tasks.Task;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+// У каждого подписчика свой ограниченный буфер, доставка идёт в потоках executor.
+// Запись никогда не ждёт подписчика: событие, которому нет места в буфере, отбрасывается и считается.
+// Пока подписчиков нет, события не создаются.
+final class EventPublisher {
+
+    private SubmissionPublisher<TaskEvent> publisher;
+    private Counter dropped = Counter.NOOP;
+    private long sequence;
+
+    // Общий пул ForkJoin (или поток на доставку, если ядро одно) и буфер Flow.defaultBufferSize()
+    EventPublisher() {
+        publisher = new SubmissionPublisher<>();
+    }
+
+    void configure(Executor executor, int bufferSize) {
+        if (publisher.hasSubscribers()) {
+            throw new IllegalStateException("Буфер событий настраивается до первой подписки");
+        }
+        publisher.close();
+        publisher = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    void setDropCounter(Counter dropped) {
+        this.dropped = dropped;
+    }
+
+    void subscribe(Flow.Subscriber<? super TaskEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    long maximumLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    void publish(TaskEvent.Kind kind, Task task) {
+        publish(kind, task, null);
+    }
+
+    void publish(TaskEvent.Kind kind, Task task, Task previous) {
+        if (task == null || !publisher.hasSubscribers()) {
+            return;
+        }
+        // Номера событий идут подряд и в порядке отправки, даже когда публикуют несколько потоков.
+        // offer с отбрасыванием не ждёт подписчиков, так что блокировка короткая
+        synchronized (this) {
+            publisher.offer(new TaskEvent(++sequence, kind, task, previous), (subscriber, event) -> {
+                dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    void close() {
+        publisher.close();
+    }
+}
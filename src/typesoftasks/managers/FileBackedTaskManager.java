@@ -1,89 +1,380 @@
 package typesoftasks.managers;
 
+import typesoftasks.metrics.Counter;
+import typesoftasks.metrics.Metrics;
+import typesoftasks.metrics.Timer;
 import typesoftasks.tasks.Epic;
 import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
-import typesoftasks.tasks.TaskStatus;
 import typesoftasks.tasks.TaskType;
+import typesoftasks.util.IntLinkedSet;
+import typesoftasks.util.StringPool;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements TaskManager, AutoCloseable {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    public static final int DEFAULT_HISTORY_FLUSH_THRESHOLD = 100;
 
     private final File file;
+    private final PersistenceMode mode;
+    private final SnapshotFormat format;
+    private final TaskJournal journal;
+    private final File historyFile;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private int historyFlushThreshold = DEFAULT_HISTORY_FLUSH_THRESHOLD;
+    private int pendingHistoryTouches;
+    private DurabilityMode durability = DurabilityMode.SYNC;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.DATA;
+    // Фоновый поток сброса: периодический в GROUP_COMMIT, а для истории запускается и в SYNC по первому порогу
+    private ScheduledExecutorService flusher;
+    private boolean historyFlushQueued;
+    private boolean closed;
+    private volatile int dirtyCount;
+    private volatile long lastFlushNanos;
+    private Timer saveTimer = Timer.NOOP;
+    private Timer flushTimer = Timer.NOOP;
+    private Counter journalRecords = Counter.NOOP;
+    private DescriptionStore descriptions;
 
     public FileBackedTaskManager(File file) {
-        super();
+        this(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode) {
+        this(file, mode, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format) {
+        this(file, mode, format, new InMemoryHistoryManager());
+    }
+
+    public FileBackedTaskManager(File file, PersistenceMode mode, SnapshotFormat format,
+                                 HistoryManager historyManager) {
+        super(historyManager);
         this.file = file;
+        this.mode = mode;
+        this.format = format;
+        this.journal = mode == PersistenceMode.JOURNAL ? new TaskJournal(journalFile(file)) : null;
+        this.historyFile = historyFile(file);
+    }
+
+    public static File journalFile(File file) {
+        return new File(file.getPath() + ".journal");
+    }
+
+    public static File historyFile(File file) {
+        return new File(file.getPath() + ".history");
+    }
+
+    public static File descriptionsFile(File file) {
+        return new File(file.getPath() + ".descriptions");
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
 
-        try {
-            List<String> lines = Files.readAllLines(file.toPath());
-            int historyLineIndex = -1;
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode) {
+        return loadFromFile(file, mode, SnapshotFormat.CSV);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode, SnapshotFormat format) {
+        return loadFromFile(file, mode, format, Metrics.NOOP);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode, SnapshotFormat format,
+                                                     Metrics metrics) {
+        return load(file, mode, format, metrics, StringPool.NOOP, 0);
+    }
+
+    // Одинаковые заголовки и описания загруженных задач хранятся одним экземпляром;
+    // пул остаётся у менеджера и для задач, созданных после загрузки
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceMode mode, SnapshotFormat format,
+                                                     Metrics metrics, StringPool strings) {
+        return load(file, mode, format, metrics, strings, 0);
+    }
+
+    public static FileBackedTaskManager loadWithLazyDescriptions(File file, PersistenceMode mode, long cachedChars) {
+        return loadWithLazyDescriptions(file, mode, SnapshotFormat.CSV, Metrics.NOOP, cachedChars);
+    }
+
+    // Описания загруженных задач не держатся в памяти: длинные уходят в descriptionsFile(file) и читаются
+    // при первом getDescription(), в кэше остаётся не больше cachedChars символов недавно прочитанных.
+    // Задачи, созданные и изменённые после загрузки, хранят описание как обычно. Сохранение копирует
+    // вынесенные описания из файла мимо кэша. После close() файл удалён, и getDescription() у задач,
+    // полученных из этого менеджера, бросает IllegalStateException.
+    public static FileBackedTaskManager loadWithLazyDescriptions(File file, PersistenceMode mode,
+                                                                 SnapshotFormat format, Metrics metrics,
+                                                                 long cachedChars) {
+        return load(file, mode, format, metrics, StringPool.NOOP, cachedChars);
+    }
+
+    private static FileBackedTaskManager load(File file, PersistenceMode mode, SnapshotFormat format,
+                                              Metrics metrics, StringPool strings, long cachedChars) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, mode, format);
+        manager.setStringPool(strings);
+        if (cachedChars > 0) {
+            manager.descriptions = new DescriptionStore(descriptionsFile(file), cachedChars);
+        }
+        manager.setMetrics(metrics);
+        Timer loadTimer = metrics.timer("loadFromFile");
+        long start = loadTimer.start();
+
+        if (mode == PersistenceMode.SNAPSHOT || file.exists()) {
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshot.read(file, strings, manager::restore, manager::restoreView);
+            } else {
+                manager.loadSnapshot();
+            }
+        }
+        if (mode == PersistenceMode.JOURNAL) {
+            manager.replayJournal();
+        }
+        manager.loadHistorySidecar();
+        loadTimer.stop(start);
+
+        return manager;
+    }
+
+    private void loadSnapshot() {
+        boolean marked = verifySnapshot();
+        try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            CsvTaskReader reader = new CsvTaskReader(in, getStringPool());
+            if (marked) {
+                reader.skipLine();
+            }
+            if (!reader.skipLine()) {
+                return;
+            }
+
+            Task task;
+            while ((task = reader.next()) != null) {
+                restore(task);
+            }
+
+            for (int id : reader.readIds()) {
+                restoreView(id);
+            }
 
-            boolean isFirstLine = true;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении файла", e);
+        }
+    }
 
-            for (int i = 0; i < lines.size(); i++) {
-                String line = lines.get(i);
+    // Строку с контрольной суммой разбор CSV не читает: она идёт после строки истории.
+    // Возвращает, начинается ли снимок строкой-меткой, которую разбор должен пропустить
+    private boolean verifySnapshot() {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            boolean marked = SnapshotFile.hasTextMarker(channel);
+            SnapshotFile.verify(channel, file, marked);
+            return marked;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении файла", e);
+        }
+    }
 
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
+    private void replayJournal() {
+        try {
+            journal.replay(new TaskJournal.Visitor() {
+                @Override
+                public void put(String line) {
+                    restore(fromString(line, getStringPool()));
                 }
 
-                if (line.isBlank()) {
-                    historyLineIndex = i + 1;
-                    break;
+                @Override
+                public void delete(int id) {
+                    restoreDelete(id);
                 }
 
-                Task task = fromString(line);
-                if (task != null) {
-                    switch (task.getType()) {
-                        case TASK:
-                            manager.getTaskMap().put(task.getId(), task);
-                            break;
-                        case EPIC:
-                            manager.getEpicMap().put(task.getId(), (Epic) task);
-                            break;
-                        case SUBTASK:
-                            manager.getSubtaskMap().put(task.getId(), (Subtask) task);
-                            Epic epic = manager.getEpicMap().get(((Subtask) task).getEpicId());
-                            if (epic != null) {
-                                epic.addSubtask(task.getId());
-                            }
-                            break;
-                    }
+                @Override
+                public void view(int id) {
+                    restoreView(id);
                 }
+            });
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении журнала", e);
+        }
+    }
+
+    private void loadHistorySidecar() {
+        if (!historyFile.exists()) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(historyFile.toPath());
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            boolean marked = SnapshotFile.hasTextMarker(buffer);
+            int length = SnapshotFile.verify(buffer, historyFile, marked);
+            int offset = marked ? SnapshotFile.TEXT_MARKER.length() : 0;
+            String line = new String(content, offset, length - offset, StandardCharsets.UTF_8);
+            for (Task task : getHistory()) {
+                historyManager.remove(task.getId());
+            }
+            for (int id : historyFromString(line)) {
+                restoreView(id);
             }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении истории", e);
+        }
+    }
 
-            if (historyLineIndex != -1 && historyLineIndex < lines.size()) {
-                String historyLine = lines.get(historyLineIndex);
-                List<Integer> historyIds = historyFromString(historyLine);
-                for (int id : historyIds) {
-                    if (manager.getTaskMap().containsKey(id)) {
-                        manager.historyManager.add(manager.getTaskMap().get(id));
-                    } else if (manager.getEpicMap().containsKey(id)) {
-                        manager.historyManager.add(manager.getEpicMap().get(id));
-                    } else if (manager.getSubtaskMap().containsKey(id)) {
-                        manager.historyManager.add(manager.getSubtaskMap().get(id));
-                    }
-                }
+    @Override
+    protected void restore(Task task) {
+        super.restore(descriptions != null ? offload(task) : task);
+    }
+
+    private Task offload(Task task) {
+        CharSequence description = descriptions.offload(task.getDescription());
+        if (description == task.getDescriptionText()) {
+            return task;
+        }
+        return task.withDescription(description);
+    }
+
+    private void restoreDelete(int id) {
+        if (getTaskMap().containsKey(id)) {
+            super.deleteTaskById(id);
+        } else if (getEpicMap().containsKey(id)) {
+            super.deleteEpicById(id);
+        } else if (getSubtaskMap().containsKey(id)) {
+            super.deleteSubtaskById(id);
+        }
+    }
+
+    private void restoreView(int id) {
+        if (getTaskMap().containsKey(id)) {
+            historyManager.add(getTaskMap().get(id));
+        } else if (getEpicMap().containsKey(id)) {
+            historyManager.add(getEpicMap().get(id));
+        } else if (getSubtaskMap().containsKey(id)) {
+            historyManager.add(getSubtaskMap().get(id));
+        }
+    }
+
+    @Override
+    public void setMetrics(Metrics metrics) {
+        super.setMetrics(metrics);
+        saveTimer = metrics.timer("save");
+        flushTimer = metrics.timer("flush");
+        journalRecords = metrics.counter("journalRecords");
+        metrics.gauge("journal", this::getJournalSize);
+        metrics.gauge("dirty", this::getDirtyCount);
+        if (descriptions != null) {
+            metrics.gauge("descriptionCacheHits", descriptions::getHits);
+            metrics.gauge("descriptionReads", descriptions::getReads);
+            metrics.gauge("descriptionCachedChars", descriptions::getCachedChars);
+        }
+    }
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    public void setCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог компактизации должен быть положительным");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public void setHistoryFlushThreshold(int historyFlushThreshold) {
+        if (historyFlushThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сброса истории должен быть положительным");
+        }
+        this.historyFlushThreshold = historyFlushThreshold;
+    }
+
+    public synchronized int getPendingHistoryTouches() {
+        return pendingHistoryTouches;
+    }
+
+    // Снимок всегда подменяется атомарно, политика решает лишь, дожидаться ли записи на диск.
+    // Журнал по той же политике дожидается диска при каждом сбросе: на каждой операции в SYNC,
+    // по таймеру в GROUP_COMMIT и в flush()/close()
+    public synchronized void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public void setDurability(DurabilityMode durability, long flushIntervalMillis) {
+        if (durability == DurabilityMode.GROUP_COMMIT && flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Интервал сброса должен быть положительным");
+        }
+        awaitShutdown(detachFlusher());
+        synchronized (this) {
+            flush();
+            this.durability = durability;
+            if (durability == DurabilityMode.GROUP_COMMIT) {
+                startFlusher(flushIntervalMillis);
             }
+        }
+    }
 
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при чтении файла", e);
+    private void startFlusher(long flushIntervalMillis) {
+        flusher().scheduleWithFixedDelay(this::flushInBackground,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Вызывается под монитором менеджера
+    private ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-manager-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        return flusher;
+    }
 
-        return manager;
+    public void setDurability(DurabilityMode durability) {
+        setDurability(durability, 0);
+    }
+
+    public DurabilityMode getDurability() {
+        return durability;
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public Duration getLastFlushLatency() {
+        return Duration.ofNanos(lastFlushNanos);
+    }
+
+    public int getJournalSize() {
+        return journal != null ? journal.size() : 0;
     }
 
     private static String historyToString(List<Task> history) {
@@ -103,132 +394,447 @@ public class FileBackedTaskManager extends InMemoryTaskManager implements TaskMa
     }
 
     private void save() {
-        try (FileWriter writer = new FileWriter(file)) {
+        long start = saveTimer.start();
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(this, file, fsyncPolicy);
+        } else {
+            writeCsv(file);
+        }
+        pendingHistoryTouches = 0;
+        try {
+            Files.deleteIfExists(historyFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении файла истории", e);
+        }
+        saveTimer.stop(start);
+    }
+
+    // Файл истории подменяется так же, как снимок: временный файл, fsync по политике, переименование
+    public synchronized void flushHistory() {
+        ByteBuffer content = ByteBuffer.wrap(historyToString(getHistory()).getBytes(StandardCharsets.UTF_8));
+        try {
+            SnapshotFile.writeText(historyFile, fsyncPolicy, channel -> {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            });
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении истории", e);
+        }
+        pendingHistoryTouches = 0;
+    }
+
+    // Читатель файл не пишет: по достижении порога историю сбрасывает фоновый поток
+    private void touchHistory(Task task) {
+        if (task == null) {
+            return;
+        }
+        if (++pendingHistoryTouches >= historyFlushThreshold && !historyFlushQueued && !closed) {
+            historyFlushQueued = true;
+            flusher().execute(this::flushHistoryInBackground);
+        }
+    }
 
-            writer.write("id,type,title,status,description,epic,duration,startTime\n");
+    private synchronized void flushHistoryInBackground() {
+        historyFlushQueued = false;
+        if (pendingHistoryTouches == 0 || closed) {
+            return;
+        }
+        try {
+            flushHistory();
+        } catch (ManagerSaveException e) {
+            // просмотры остаются несброшенными, повторит следующий порог или close()
+        }
+    }
+
+    public synchronized void export(File target) {
+        writeCsv(target);
+    }
+
+    private void writeCsv(File target) {
+        try {
+            SnapshotFile.writeText(target, fsyncPolicy, channel -> writeCsv(channel));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении в файл", e);
+        }
+    }
+
+    private void writeCsv(WritableByteChannel channel) throws IOException {
+        Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        CsvTaskWriter writer = new CsvTaskWriter(out);
+
+        writer.writeHeader();
+
+        for (Task task : getTaskMap().values()) {
+            writer.write(task);
+        }
+        for (Epic epic : getEpicMap().values()) {
+            writer.write(epic);
+        }
+        for (Subtask subtask : getSubtaskMap().values()) {
+            writer.write(subtask);
+        }
+
+        writer.endTasks();
+
+        writer.writeIds(getHistory());
+        writer.flush();
+        // Writer не закрываем: канал закроет SnapshotFile после контрольной суммы
+        out.flush();
+    }
+
+    public synchronized void compact() {
+        save();
+        dirtyCount = 0;
+        if (journal != null) {
+            try {
+                journal.reset();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при очистке журнала", e);
+            }
+        }
+    }
+
+    public synchronized void flush() {
+        flushChanges();
+        if (pendingHistoryTouches > 0) {
+            flushHistory();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (ManagerSaveException e) {
+            // изменения остаются грязными, следующая попытка будет на следующем тике или в close()
+        }
+    }
 
-            for (Task task : getTaskMap().values()) {
-                writer.write(toString(task) + "\n");
+    private void flushChanges() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long timed = flushTimer.start();
+        if (mode == PersistenceMode.SNAPSHOT) {
+            save();
+        } else {
+            try {
+                journal.flush(fsyncPolicy);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
             }
-            for (Epic epic : getEpicMap().values()) {
-                writer.write(toString(epic) + "\n");
+            compactIfNeeded();
+        }
+        dirtyCount = 0;
+        lastFlushNanos = System.nanoTime() - start;
+        flushTimer.stop(timed);
+    }
+
+    private void markDirty() {
+        dirtyCount++;
+        if (durability == DurabilityMode.SYNC) {
+            flushChanges();
+        }
+    }
+
+    private synchronized ScheduledExecutorService detachFlusher() {
+        ScheduledExecutorService running = flusher;
+        flusher = null;
+        return running;
+    }
+
+    private static void awaitShutdown(ScheduledExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            closed = true;
+            running = detachFlusher();
+        }
+        awaitShutdown(running);
+        synchronized (this) {
+            closeEvents();
+            flush();
+            if (journal != null) {
+                try {
+                    journal.close(fsyncPolicy);
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Ошибка при закрытии журнала", e);
+                }
             }
-            for (Subtask subtask : getSubtaskMap().values()) {
-                writer.write(toString(subtask) + "\n");
+            if (descriptions != null) {
+                try {
+                    descriptions.close();
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Ошибка при закрытии файла описаний", e);
+                }
             }
+        }
+    }
 
-            writer.write("\n");
+    private void persistPut(Task... changed) {
+        if (journal != null) {
+            try {
+                for (Task task : changed) {
+                    if (task != null) {
+                        journal.appendPut(toString(task));
+                        journalRecords.increment();
+                    }
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+        markDirty();
+    }
 
-            writer.write(historyToString(getHistory()));
+    private void persistDelete(int id, Task changed) {
+        if (journal != null) {
+            try {
+                journal.appendDelete(id);
+                journalRecords.increment();
+                if (changed != null) {
+                    journal.appendPut(toString(changed));
+                    journalRecords.increment();
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+        markDirty();
+    }
 
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при сохранении в файл", e);
+    // Весь пакет попадает в журнал одной серией записей и сбрасывается на диск один раз
+    private void persistBatch(Collection<Integer> deleted, Collection<? extends Task> changed) {
+        if (journal != null) {
+            try {
+                for (int id : deleted) {
+                    journal.appendDelete(id);
+                }
+                for (Task task : changed) {
+                    journal.appendPut(toString(task));
+                }
+                journalRecords.add(deleted.size() + changed.size());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при записи в журнал", e);
+            }
+        }
+        markDirty();
+    }
+
+    private void addEpics(List<Task> changed, IntLinkedSet epicIds) {
+        for (int epicId : epicIds.toArray()) {
+            Epic epic = getEpicMap().get(epicId);
+            if (epic != null) {
+                changed.add(epic);
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (journal.size() >= compactionThreshold) {
+            compact();
         }
     }
 
     public static String toString(Task task) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(task.getId()).append(",");
-        sb.append(task.getType()).append(",");
-        sb.append(task.getTitle()).append(",");
-        sb.append(task.getStatus()).append(",");
-        sb.append(task.getDescription()).append(",");
-        if (task instanceof Subtask) {
-            sb.append(((Subtask) task).getEpicId());
+        StringWriter out = new StringWriter();
+        try {
+            CsvTaskWriter writer = new CsvTaskWriter(out);
+            writer.write(task);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return sb.toString();
+        StringBuffer line = out.getBuffer();
+        line.setLength(line.length() - 1);
+        return line.toString();
     }
 
     public static Task fromString(String value) {
-        String[] fields = value.split(",");
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String title = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-
-        switch (type) {
-            case TASK:
-                Task task = new Task(id, title, description);
-                task.setStatus(status);
-                return task;
-            case EPIC:
-                Epic epic = new Epic(id, title, description);
-                epic.setStatus(status);
-                return epic;
-            case SUBTASK:
-                int epicId = Integer.parseInt(fields[5]);
-                Subtask subtask = new Subtask(id, title, description, epicId);
-                subtask.setStatus(status);
-                return subtask;
-            default:
-                throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
-        }
-    }
-
-    @Override
-    public Task createTask(String title, String description) {
+        return fromString(value, StringPool.NOOP);
+    }
+
+    private static Task fromString(String value, StringPool strings) {
+        try {
+            Task task = new CsvTaskReader(new StringReader(value), strings).next();
+            if (task == null) {
+                throw new IllegalArgumentException("Пустая строка CSV");
+            }
+            return task;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized Task createTask(String title, String description) {
         Task task = super.createTask(title, description);
-        save();
+        persistPut(task);
         return task;
     }
 
     @Override
-    public Epic createEpic(String title, String description) {
+    public synchronized Epic createEpic(String title, String description) {
         Epic epic = super.createEpic(title, description);
-        save();
+        persistPut(epic);
         return epic;
     }
 
     @Override
-    public Subtask createSubtask(String title, String description, int epicId) {
+    public synchronized Subtask createSubtask(String title, String description, int epicId) {
         Subtask subtask = super.createSubtask(title, description, epicId);
-        save();
+        if (subtask != null) {
+            persistPut(subtask, getEpicMap().get(epicId));
+        }
         return subtask;
     }
 
     @Override
-    public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+    public synchronized Task updateTask(Task task) {
+        Task stored = super.updateTask(task);
+        persistPut(stored);
+        return stored;
     }
 
     @Override
-    public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+    public synchronized Epic updateEpic(Epic epic) {
+        Epic stored = super.updateEpic(epic);
+        persistPut(stored);
+        return stored;
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+    public synchronized Subtask updateSubtask(Subtask subtask) {
+        Subtask old = getSubtaskMap().get(subtask.getId());
+        Subtask stored = super.updateSubtask(subtask);
+        Epic previousEpic = old != null && old.getEpicId() != stored.getEpicId()
+                ? getEpicMap().get(old.getEpicId()) : null;
+        persistPut(stored, getEpicMap().get(stored.getEpicId()), previousEpic);
+        return stored;
     }
 
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
         super.deleteTaskById(id);
-        save();
+        persistDelete(id, null);
     }
 
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
         super.deleteEpicById(id);
-        save();
+        persistDelete(id, null);
     }
 
     @Override
-    public void deleteSubtaskById(int id) {
+    public synchronized void deleteSubtaskById(int id) {
+        Subtask subtask = getSubtaskMap().get(id);
         super.deleteSubtaskById(id);
-        save();
+        persistDelete(id, subtask != null ? getEpicMap().get(subtask.getEpicId()) : null);
     }
 
     @Override
-    public Task getTask(int id) {
+    public synchronized List<Task> createAll(Collection<? extends Task> drafts) {
+        List<Task> created = super.createAll(drafts);
+        // При воспроизведении журнала эпики должны появиться раньше своих подзадач,
+        // а их итоговое состояние со статусом — после
+        List<Task> changed = new ArrayList<>(created.size());
+        IntLinkedSet epicIds = new IntLinkedSet();
+        for (Task task : created) {
+            if (task.getType() == TaskType.EPIC) {
+                changed.add(task);
+            }
+        }
+        for (Task task : created) {
+            if (task.getType() == TaskType.SUBTASK) {
+                epicIds.add(((Subtask) task).getEpicId());
+            }
+            if (task.getType() != TaskType.EPIC) {
+                changed.add(task);
+            }
+        }
+        addEpics(changed, epicIds);
+        persistBatch(List.of(), changed);
+        return created;
+    }
+
+    @Override
+    public synchronized List<Task> updateAll(Collection<? extends Task> tasks) {
+        IntLinkedSet epicIds = new IntLinkedSet();
+        for (Task task : tasks) {
+            if (task.getType() == TaskType.SUBTASK) {
+                Subtask old = getSubtaskMap().get(task.getId());
+                if (old != null) {
+                    epicIds.add(old.getEpicId());
+                }
+                epicIds.add(((Subtask) task).getEpicId());
+            }
+        }
+        List<Task> updated = super.updateAll(tasks);
+        List<Task> changed = new ArrayList<>(updated);
+        addEpics(changed, epicIds);
+        persistBatch(List.of(), changed);
+        return updated;
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<Integer> ids) {
+        IntLinkedSet epicIds = new IntLinkedSet();
+        for (int id : ids) {
+            Subtask subtask = getSubtaskMap().get(id);
+            if (subtask != null) {
+                epicIds.add(subtask.getEpicId());
+            }
+        }
+        super.deleteAll(ids);
+        List<Task> changed = new ArrayList<>();
+        addEpics(changed, epicIds);
+        persistBatch(ids, changed);
+    }
+
+    @Override
+    public synchronized void deleteAllSubtasksOf(int epicId) {
+        Epic epic = getEpicMap().get(epicId);
+        if (epic == null) {
+            return;
+        }
+        List<Integer> removed = new ArrayList<>(epic.getSubtasks());
+        super.deleteAllSubtasksOf(epicId);
+        persistBatch(removed, List.of(epic));
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
         Task task = super.getTask(id);
-        save();
+        touchHistory(task);
         return task;
     }
 
+    @Override
+    public synchronized Epic getEpic(int id) {
+        Epic epic = super.getEpic(id);
+        touchHistory(epic);
+        return epic;
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(int id) {
+        Subtask subtask = super.getSubtaskById(id);
+        touchHistory(subtask);
+        return subtask;
+    }
+
 
 }
@@ -0,0 +1,13 @@
+package typesoftasks.managers;
+
+// Что дожидаться от диска при сохранении снимка перед переименованием временного файла
+// и при сбросе журнала
+public enum FsyncPolicy {
+    // Не ждать: переживает падение процесса, но не отключение питания
+    NONE,
+    // force(false) временного файла: данные снимка на диске до того, как он подменит старый;
+    // для журнала — force(false) после каждого сброса
+    DATA,
+    // force(true) и синхронизация каталога после переименования: на диске и метаданные, и сама подмена
+    FULL
+}
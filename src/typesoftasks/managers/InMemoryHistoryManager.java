@@ -3,82 +3,110 @@ package typesoftasks.managers;
 import typesoftasks.tasks.Task;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Каждый просмотр получает возрастающий номер: views хранит порядок, positions — актуальный номер задачи.
+// Запись в views считается живой, только пока positions указывает на её номер,
+// поэтому устаревшие записи, которые ещё не успели удалить, пропускаются при чтении.
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private static class Node {
-        Task task;
-        Node prev;
-        Node next;
+    // Без ограничения история хранит каждую просмотренную задачу, как и до появления вытеснения
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
 
-        public Node(Node prev, Task task, Node next) {
-            this.prev = prev;
-            this.task = task;
-            this.next = next;
-        }
-    }
+    private final int capacity;
+    private final ConcurrentSkipListMap<Long, Task> views = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, Long> positions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
 
-    private Node head;
-    private Node tail;
-    private final Map<Integer, Node> nodeMap = new HashMap<>();
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
 
-    private void linkLast(Task task) {
-        final Node oldTail = tail;
-        final Node newNode = new Node(oldTail, task, null);
-        tail = newNode;
-        if (oldTail == null) {
-            head = newNode;
-        } else {
-            oldTail.next = newNode;
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + capacity);
         }
-        nodeMap.put(task.getId(), newNode);
+        this.capacity = capacity;
     }
 
-    private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
-        Node current = head;
-        while (current != null) {
-            tasks.add(current.task);
-            current = current.next;
-        }
-        return tasks;
+    public int getCapacity() {
+        return capacity;
     }
 
-    private void removeNode(Node node) {
-        if (node == null) return;
-        if (node.prev != null) {
-            node.prev.next = node.next;
-        } else {
-            head = node.next;
-        }
-        if (node.next != null) {
-            node.next.prev = node.prev;
-        } else {
-            tail = node.prev;
-        }
+    @Override
+    public int size() {
+        return size.get();
     }
 
     @Override
     public void add(Task task) {
         if (task == null) return;
-        if (nodeMap.containsKey(task.getId())) {
-            removeNode(nodeMap.get(task.getId()));
-            nodeMap.remove(task.getId());
+        long position = sequence.incrementAndGet();
+        Long previous = positions.put(task.getId(), position);
+        views.put(position, task);
+        if (!Long.valueOf(position).equals(positions.get(task.getId()))) {
+            // Задачу успели удалить или просмотреть снова — наша запись уже устарела
+            views.remove(position);
+        }
+        if (previous != null) {
+            views.remove(previous);
+        } else if (size.incrementAndGet() > capacity) {
+            evict();
         }
-        linkLast(task);
     }
 
     @Override
     public void remove(int id) {
-        Node node = nodeMap.remove(id);
-        if (node != null) {
-            removeNode(node);
+        Long position = positions.remove(id);
+        if (position != null) {
+            views.remove(position);
+            size.decrementAndGet();
         }
     }
 
     @Override
     public List<Task> getHistory() {
-        return getTasks();
+        List<Task> tasks = new ArrayList<>(Math.min(size.get(), capacity));
+        for (Map.Entry<Long, Task> entry : views.entrySet()) {
+            if (isCurrent(entry)) {
+                tasks.add(entry.getValue());
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        List<Task> tasks = new ArrayList<>(Math.max(0, Math.min(limit, size.get())));
+        for (Map.Entry<Long, Task> entry : views.descendingMap().entrySet()) {
+            if (tasks.size() >= limit) {
+                break;
+            }
+            if (isCurrent(entry)) {
+                tasks.add(entry.getValue());
+            }
+        }
+        Collections.reverse(tasks);
+        return tasks;
     }
-}
 
+    private boolean isCurrent(Map.Entry<Long, Task> entry) {
+        return entry.getKey().equals(positions.get(entry.getValue().getId()));
+    }
+
+    private void evict() {
+        while (size.get() > capacity) {
+            Map.Entry<Long, Task> oldest = views.pollFirstEntry();
+            if (oldest == null) {
+                return;
+            }
+            if (positions.remove(oldest.getValue().getId(), oldest.getKey())) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,64 +1,244 @@
 package typesoftasks.managers;
 
+import typesoftasks.metrics.Counter;
+import typesoftasks.metrics.Metrics;
+import typesoftasks.metrics.Timer;
 import typesoftasks.tasks.Epic;
 import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
 import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+import typesoftasks.util.IntLinkedSet;
+import typesoftasks.util.IntObjectMap;
+import typesoftasks.util.StringPool;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected final HistoryManager historyManager = new InMemoryHistoryManager();
-    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(
-            Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
-                    .thenComparing(Task::getId)
-    );
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    private final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    private final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+    private final IntObjectMap<EpicAggregate> aggregates = new IntObjectMap<>();
+    protected final HistoryManager historyManager;
+    static final Comparator<Task> PRIORITY_ORDER =
+            Comparator.comparing(Task::getStartTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+                    .thenComparing(Task::getId);
+
+    private final TreeSet<Task> prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
+
+    private final IntervalIndex intervals = new IntervalIndex();
+    private final StatusIndex statuses = new StatusIndex();
+    private final SearchIndex search = new SearchIndex();
+    private final EventPublisher events = new EventPublisher();
+    private final NavigableSet<Task> prioritizedView = Collections.unmodifiableNavigableSet(prioritizedTasks);
+    private final Collection<Task> allTasksView = new ConcatView(
+            List.of(tasks.values(), epics.values(), subtasks.values()));
+    private final Collection<Epic> epicsView = Collections.unmodifiableCollection(epics.values());
+    private final Collection<Subtask> subtasksView = Collections.unmodifiableCollection(subtasks.values());
 
     private int currentId = 1;
+    private int lastId = Integer.MAX_VALUE;
+
+    // Для шардов: общий индекс интервалов всех шардов под собственным монитором (см. shareIntervals)
+    private IntervalIndex sharedIntervals;
+
+    private StringPool strings = StringPool.NOOP;
+
+    private Timer intersectionTimer = Timer.NOOP;
+    private Timer epicStatusTimer = Timer.NOOP;
+    private Counter rejectedOverlaps = Counter.NOOP;
+
+    public InMemoryTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    // Например, Managers.getDefaultHistory(capacity), чтобы ограничить историю
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
 
     private int generateId() {
+        if (currentId > lastId) {
+            throw new IllegalStateException("Закончились id диапазона до " + lastId);
+        }
         return currentId++;
     }
 
-    protected Map<Integer, Task> getTaskMap() {
+    protected void reserveId(int id) {
+        if (id >= currentId) {
+            currentId = id + 1;
+        }
+    }
+
+    // Для шардов: шард i из shards выдаёт id из своего непрерывного диапазона idRange(shards) id,
+    // поэтому id уникальны без общего счётчика и внутри шарда идут подряд, как у одного менеджера
+    void useIdRange(int shard, int shards) {
+        int range = idRange(shards);
+        currentId = Math.max(currentId, shard * range + 1);
+        lastId = (shard + 1) * range;
+    }
+
+    // Шард дублирует в shared каждое изменение своих интервалов, поэтому пересечения с другими шардами
+    // проверяются по одному индексу без блокировок этих шардов. Монитор shared берётся последним
+    void shareIntervals(IntervalIndex shared) {
+        synchronized (shared) {
+            for (Task task : prioritizedTasks) {
+                shared.add(task);
+            }
+        }
+        sharedIntervals = shared;
+    }
+
+    static int idRange(int shards) {
+        return Integer.MAX_VALUE / shards;
+    }
+
+    static int shardOf(int id, int shards) {
+        return Math.floorMod(Math.floorDiv(id - 1, idRange(shards)), shards);
+    }
+
+    // Подключать до начала работы с менеджером: поля метрик не volatile
+    public void setMetrics(Metrics metrics) {
+        intersectionTimer = metrics.timer("hasIntersection");
+        epicStatusTimer = metrics.timer("updateEpicStatus");
+        rejectedOverlaps = metrics.counter("overlapsRejected");
+        metrics.gauge("tasks", tasks::size);
+        metrics.gauge("epics", epics::size);
+        metrics.gauge("subtasks", subtasks::size);
+        metrics.gauge("history", historyManager::size);
+        events.setDropCounter(metrics.counter("eventsDropped"));
+        metrics.gauge("eventLag", events::maximumLag);
+    }
+
+    // Заголовки и описания создаваемых и загружаемых задач проходят через пул,
+    // чтобы одинаковый текст (например, подзадачи из шаблона) хранился один раз. Подключать до начала работы
+    public void setStringPool(StringPool strings) {
+        this.strings = strings;
+    }
+
+    public StringPool getStringPool() {
+        return strings;
+    }
+
+    // Поток изменений вместо опроса getAllTasks. Доставка асинхронная и не тормозит запись:
+    // если подписчик отстал больше чем на размер буфера, лишние события отбрасываются,
+    // и он узнаёт об этом по пропуску в TaskEvent.getSequence()
+    public Flow.Publisher<TaskEvent> events() {
+        return events::subscribe;
+    }
+
+    // Вызывать до первой подписки: по умолчанию общий пул и буфер Flow.defaultBufferSize()
+    public void setEventDelivery(Executor executor, int bufferSize) {
+        events.configure(executor, bufferSize);
+    }
+
+    // Подписчики получают onComplete
+    protected void closeEvents() {
+        events.close();
+    }
+
+    protected IntObjectMap<Task> getTaskMap() {
         return tasks;
     }
 
-    protected Map<Integer, Epic> getEpicMap() {
+    protected IntObjectMap<Epic> getEpicMap() {
         return epics;
     }
 
-    protected Map<Integer, Subtask> getSubtaskMap() {
+    protected IntObjectMap<Subtask> getSubtaskMap() {
         return subtasks;
     }
 
-    private boolean isTimeIntersecting(Task t1, Task t2) {
-        return !(t1.getEndTime().isBefore(t2.getStartTime()) || t1.getStartTime().isAfter(t2.getEndTime()));
+    protected void restore(Task task) {
+        reserveId(task.getId());
+        switch (task.getType()) {
+            case TASK:
+                unschedule(tasks.put(task.getId(), task));
+                schedule(task);
+                index(task);
+                break;
+            case EPIC:
+                // Статус и время из файла не нужны: они выводятся из уже загруженных подзадач
+                Epic epic = (Epic) task;
+                Epic stored = aggregate(epic.getId()).snapshot(epic, epic.getVersion());
+                epics.put(stored.getId(), stored);
+                index(stored);
+                break;
+            case SUBTASK:
+                Subtask subtask = (Subtask) task;
+                Subtask previous = putSubtask(subtask);
+                if (previous != null && previous.getEpicId() != subtask.getEpicId()) {
+                    refreshEpic(previous.getEpicId());
+                }
+                refreshEpic(subtask.getEpicId());
+                break;
+        }
     }
 
-    private boolean hasIntersection(Task newTask) {
-        if (newTask.getStartTime() == null || newTask.getEndTime() == null) {
-            return false;
+    private EpicAggregate aggregate(int epicId) {
+        EpicAggregate aggregate = aggregates.get(epicId);
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+            aggregates.put(epicId, aggregate);
         }
+        return aggregate;
+    }
 
-        for (Task existing : getPrioritizedTasks()) {
-            if (existing.getId() == newTask.getId()) continue;
+    private void index(Task task) {
+        statuses.add(task);
+        search.add(task);
+    }
 
-            if (existing.getStartTime() == null || existing.getEndTime() == null) continue;
+    private void unindex(Task task) {
+        statuses.remove(task);
+        search.remove(task);
+    }
 
-            if (existing.getStartTime().isAfter(newTask.getEndTime())) {
-                break;
+    private void schedule(Task task) {
+        if (task != null && task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            intervals.add(task);
+            if (sharedIntervals != null) {
+                synchronized (sharedIntervals) {
+                    sharedIntervals.add(task);
+                }
             }
+        }
+    }
 
-            if (isTimeIntersecting(newTask, existing)) {
-                return true;
+    private void unschedule(Task task) {
+        if (task != null) {
+            if (task.getStartTime() != null) {
+                prioritizedTasks.remove(task);
+            }
+            intervals.remove(task.getId());
+            if (sharedIntervals != null) {
+                synchronized (sharedIntervals) {
+                    sharedIntervals.remove(task.getId());
+                }
             }
         }
+    }
 
-        return false;
+    private boolean hasIntersection(Task newTask) {
+        if (newTask.getStartTime() == null || newTask.getEndTime() == null) {
+            return false;
+        }
+        long start = intersectionTimer.start();
+        boolean overlaps = intervals.overlaps(newTask.getStartTime(), newTask.getEndTime(), newTask.getId());
+        intersectionTimer.stop(start);
+        if (overlaps) {
+            rejectedOverlaps.increment();
+        }
+        return overlaps;
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        return intervals.overlapping(from, to);
     }
 
     @Override
@@ -66,112 +246,247 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks);
     }
 
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        return prioritizedView;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(prioritizedTasks.subSet(probe(from), true, probe(to), false));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Task cursor, int limit) {
+        Iterable<Task> tail = cursor == null ? prioritizedTasks : prioritizedTasks.tailSet(cursor, false);
+        List<Task> page = new ArrayList<>(Math.min(limit, prioritizedTasks.size()));
+        for (Task task : tail) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
+    }
+
+    static Task probe(LocalDateTime startTime) {
+        return new Task(Integer.MIN_VALUE, null, null, TaskStatus.NEW, null, startTime);
+    }
+
     @Override
     public Task createTask(String title, String description) {
-        Task task = new Task(generateId(), title, description);
+        Task task = new Task(generateId(), strings.intern(title), strings.intern(description), TaskStatus.NEW,
+                null, null, Task.FIRST_VERSION);
 
         if (task.getStartTime() != null && hasIntersection(task)) {
             throw new IllegalArgumentException("Задача пересекается по времени с другой задачей.");
         }
 
         tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        schedule(task);
+        index(task);
+        events.publish(TaskEvent.Kind.CREATED, task);
         return task;
     }
 
     @Override
     public Epic createEpic(String title, String description) {
-        Epic epic = new Epic(generateId(), title, description);
+        Epic epic = new Epic(generateId(), strings.intern(title), strings.intern(description), Task.FIRST_VERSION);
+        aggregates.put(epic.getId(), new EpicAggregate());
         epics.put(epic.getId(), epic);
+        index(epic);
+        events.publish(TaskEvent.Kind.CREATED, epic);
         return epic;
     }
 
     @Override
     public Subtask createSubtask(String title, String description, int epicId) {
-        Epic epic = epics.get(epicId);
-        if (epic == null) return null;
+        if (!epics.containsKey(epicId)) return null;
 
-        Subtask subtask = new Subtask(generateId(), title, description, epicId);
+        Subtask subtask = new Subtask(generateId(), strings.intern(title), strings.intern(description), epicId,
+                TaskStatus.NEW, null, null, Task.FIRST_VERSION);
         if (subtask.getStartTime() != null && hasIntersection(subtask)) {
             throw new IllegalArgumentException("Подзадача пересекается по времени.");
         }
 
         subtasks.put(subtask.getId(), subtask);
-        epic.addSubtask(subtask.getId());
-        updateEpicStatus(epic);
+        index(subtask);
+        events.publish(TaskEvent.Kind.CREATED, subtask);
+        aggregates.get(epicId).apply(subtask);
+        refreshEpic(epicId);
 
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
+        schedule(subtask);
 
         return subtask;
     }
 
+    private void touch(Task task) {
+        historyManager.add(task);
+        events.publish(TaskEvent.Kind.HISTORY_TOUCHED, task);
+    }
+
     @Override
     public Task getTask(int id) {
         Task task = tasks.get(id);
-        if (task != null) historyManager.add(task);
+        if (task != null) touch(task);
         return task;
     }
 
     @Override
     public Epic getEpic(int id) {
         Epic epic = epics.get(id);
-        if (epic != null) historyManager.add(epic);
+        if (epic != null) touch(epic);
         return epic;
     }
 
     @Override
     public Subtask getSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
-        if (subtask != null) historyManager.add(subtask);
+        if (subtask != null) touch(subtask);
         return subtask;
     }
 
     @Override
-    public void updateTask(Task task) {
-        Task oldTask = tasks.get(task.getId());
-        if (oldTask != null && oldTask.getStartTime() != null) {
-            prioritizedTasks.remove(oldTask);
+    public Task find(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
         }
+        return task != null ? task : subtasks.get(id);
+    }
 
-        if (task.getStartTime() != null && hasIntersection(task)) {
-            throw new IllegalArgumentException("Обновлённая задача пересекается по времени.");
+    // Версия, которую получит сохраняемая задача. Обновление по версии, отличной от сохранённой,
+    // отклоняется; черновик без версии записывается поверх любой
+    static long nextVersion(Task current, Task update) {
+        long actual = current != null ? current.getVersion() : Task.UNVERSIONED;
+        if (update.getVersion() != Task.UNVERSIONED && update.getVersion() != actual) {
+            throw new StaleVersionException(update.getId(), update.getVersion(), actual);
         }
+        return actual + 1;
+    }
 
-        tasks.put(task.getId(), task);
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
+    static void checkEpicLink(Subtask subtask) {
+        if (subtask.getId() == subtask.getEpicId()) {
+            throw new IllegalArgumentException("Epic cannot be its own subtask");
         }
     }
 
-    @Override
-    public void updateEpic(Epic epic) {
-        epics.put(epic.getId(), epic);
-        updateEpicStatus(epic);
+    Task stored(Task task) {
+        switch (task.getType()) {
+            case EPIC:
+                return epics.get(task.getId());
+            case SUBTASK:
+                return subtasks.get(task.getId());
+            default:
+                return tasks.get(task.getId());
+        }
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
-        Subtask old = subtasks.get(subtask.getId());
-        if (old != null && old.getStartTime() != null) {
-            prioritizedTasks.remove(old);
+    public Task updateTask(Task task) {
+        long version = nextVersion(tasks.get(task.getId()), task);
+        if (task.getStartTime() != null && hasIntersection(task)) {
+            throw new IllegalArgumentException("Обновлённая задача пересекается по времени.");
         }
 
+        Task stored = task.withVersion(version);
+        putTask(stored);
+        return stored;
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        return putEpic(epic, nextVersion(epics.get(epic.getId()), epic));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        checkEpicLink(subtask);
+        long version = nextVersion(subtasks.get(subtask.getId()), subtask);
         if (subtask.getStartTime() != null && hasIntersection(subtask)) {
             throw new IllegalArgumentException("Обновлённая подзадача пересекается по времени.");
         }
 
-        subtasks.put(subtask.getId(), subtask);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
+        Subtask stored = subtask.withVersion(version);
+        Subtask old = putSubtask(stored);
+        if (old != null && old.getEpicId() != stored.getEpicId()) {
+            refreshEpic(old.getEpicId());
         }
+        refreshEpic(stored.getEpicId());
+        return stored;
+    }
 
-        Epic epic = epics.get(subtask.getEpicId());
-        if (epic != null) {
-            updateEpicStatus(epic);
+    private void putTask(Task task) {
+        Task old = tasks.put(task.getId(), task);
+        unschedule(old);
+        schedule(task);
+        index(task);
+        published(old, task);
+    }
+
+    // От присланного эпика берутся заголовок и описание, остальное выводится из подзадач
+    private Epic putEpic(Epic epic, long version) {
+        Epic stored = aggregate(epic.getId()).snapshot(epic, version);
+        Epic existing = epics.put(stored.getId(), stored);
+        index(stored);
+        published(existing, stored);
+        return stored;
+    }
+
+    // Снимки затронутых эпиков обновляет вызывающий
+    private Subtask putSubtask(Subtask subtask) {
+        Subtask old = subtasks.put(subtask.getId(), subtask);
+        unschedule(old);
+        schedule(subtask);
+        index(subtask);
+        published(old, subtask);
+
+        if (old != null && old.getEpicId() != subtask.getEpicId()) {
+            EpicAggregate previous = aggregates.get(old.getEpicId());
+            if (previous != null) {
+                previous.remove(old.getId());
+            }
+        }
+
+        EpicAggregate aggregate = aggregates.get(subtask.getEpicId());
+        if (aggregate != null) {
+            aggregate.apply(subtask);
+        }
+        return old;
+    }
+
+    private void published(Task old, Task stored) {
+        events.publish(old == null ? TaskEvent.Kind.CREATED : TaskEvent.Kind.UPDATED, stored);
+    }
+
+    // Сохраняет новый снимок эпика по его агрегатам
+    private void refreshEpic(int epicId) {
+        Epic current = epics.get(epicId);
+        if (current == null) {
+            return;
+        }
+        long start = epicStatusTimer.start();
+        Epic epic = aggregates.get(epicId).snapshot(current, current.getVersion());
+        epics.put(epicId, epic);
+        index(epic);
+        if (epic.getStatus() != current.getStatus()) {
+            events.publish(TaskEvent.Kind.EPIC_STATUS_CHANGED, epic, current);
+        }
+        epicStatusTimer.stop(start);
+    }
+
+    private void refreshEpics(IntLinkedSet epicIds) {
+        for (int epicId : epicIds.toArray()) {
+            refreshEpic(epicId);
+        }
+    }
+
+    // Пакет возвращает эпики такими, какими они сохранены после всех его подзадач
+    private void refreshEpicResults(Task[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] instanceof Epic) {
+                results[i] = epics.get(results[i].getId());
+            }
         }
     }
 
@@ -184,14 +499,19 @@ public class InMemoryTaskManager implements TaskManager {
         return all;
     }
 
+    @Override
+    public Collection<Task> getAllTasksView() {
+        return allTasksView;
+    }
+
     @Override
     public Collection<Epic> getAllEpics() {
-        return epics.values();
+        return epicsView;
     }
 
     @Override
     public Collection<Subtask> getAllSubtasks() {
-        return subtasks.values();
+        return subtasksView;
     }
 
     @Override
@@ -207,76 +527,244 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void deleteTaskById(int id) {
-        Task task = tasks.remove(id);
-        if (task != null && task.getStartTime() != null) {
-            prioritizedTasks.remove(task);
-        }
-        historyManager.remove(id);
+        dropTask(id);
     }
 
     @Override
     public void deleteEpicById(int id) {
+        dropEpic(id);
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        Subtask subtask = dropSubtask(id);
+        if (subtask != null) {
+            refreshEpic(subtask.getEpicId());
+        }
+    }
+
+    private void dropTask(int id) {
+        Task task = tasks.remove(id);
+        unschedule(task);
+        unindex(task);
+        historyManager.remove(id);
+        events.publish(TaskEvent.Kind.DELETED, task);
+    }
+
+    private void dropEpic(int id) {
         Epic epic = epics.remove(id);
+        aggregates.remove(id);
         if (epic != null) {
+            unindex(epic);
             for (int subtaskId : epic.getSubtasks()) {
-                Subtask subtask = subtasks.remove(subtaskId);
-                if (subtask != null && subtask.getStartTime() != null) {
-                    prioritizedTasks.remove(subtask);
-                }
-                historyManager.remove(subtaskId);
+                dropOrphan(subtaskId);
             }
         }
         historyManager.remove(id);
+        events.publish(TaskEvent.Kind.DELETED, epic);
     }
 
-    @Override
-    public void deleteSubtaskById(int id) {
+    // Подзадача уходит вместе с эпиком, поэтому сам эпик не трогаем
+    private void dropOrphan(int subtaskId) {
+        Subtask subtask = subtasks.remove(subtaskId);
+        unschedule(subtask);
+        unindex(subtask);
+        historyManager.remove(subtaskId);
+        events.publish(TaskEvent.Kind.DELETED, subtask);
+    }
+
+    private Subtask dropSubtask(int id) {
         Subtask subtask = subtasks.remove(id);
-        if (subtask != null && subtask.getStartTime() != null) {
-            prioritizedTasks.remove(subtask);
-            Epic epic = epics.get(subtask.getEpicId());
-            if (epic != null) {
-                epic.removeSubtask(id);
-                updateEpicStatus(epic);
+        if (subtask != null) {
+            unschedule(subtask);
+            unindex(subtask);
+            EpicAggregate aggregate = aggregates.get(subtask.getEpicId());
+            if (aggregate != null) {
+                aggregate.remove(id);
             }
         }
         historyManager.remove(id);
+        events.publish(TaskEvent.Kind.DELETED, subtask);
+        return subtask;
     }
 
     @Override
-    public List<Task> getHistory() {
-        return historyManager.getHistory();
+    public List<Task> createAll(Collection<? extends Task> drafts) {
+        IntObjectMap<Epic> draftEpics = Batches.draftEpics(drafts);
+        Batches.checkEpicsExist(drafts, draftEpics, epics::containsKey);
+        Batches.checkOverlaps(drafts, intervals, id -> false);
+
+        // Сначала эпики, чтобы подзадачи пакета могли на них сослаться; id выдаются в порядке черновиков
+        Task[] created = new Task[drafts.size()];
+        int[] ids = new int[created.length];
+        IntObjectMap<Epic> createdEpics = new IntObjectMap<>(draftEpics.size());
+        int i = 0;
+        for (Task draft : drafts) {
+            ids[i] = generateId();
+            if (draft.getType() == TaskType.EPIC) {
+                Epic epic = new Epic(ids[i], strings.intern(draft.getTitle()),
+                        strings.intern(draft.getDescriptionText()), Task.FIRST_VERSION);
+                aggregates.put(epic.getId(), new EpicAggregate());
+                epics.put(epic.getId(), epic);
+                index(epic);
+                events.publish(TaskEvent.Kind.CREATED, epic);
+                createdEpics.put(draft.getId(), epic);
+                created[i] = epic;
+            }
+            i++;
+        }
+
+        IntLinkedSet touched = new IntLinkedSet();
+        i = 0;
+        for (Task draft : drafts) {
+            if (draft.getType() == TaskType.SUBTASK) {
+                int epicId = ((Subtask) draft).getEpicId();
+                Epic epic = createdEpics.containsKey(epicId) ? createdEpics.get(epicId) : epics.get(epicId);
+                Subtask subtask = Batches.copy(draft, ids[i], epic.getId(), strings);
+                putSubtask(subtask);
+                touched.add(epic.getId());
+                created[i] = subtask;
+            } else if (draft.getType() == TaskType.TASK) {
+                Task task = Batches.copy(draft, ids[i], strings);
+                putTask(task);
+                created[i] = task;
+            }
+            i++;
+        }
+        refreshEpics(touched);
+        refreshEpicResults(created);
+        return List.of(created);
     }
 
     @Override
-    public void updateEpicStatus(Epic epic) {
-        List<Integer> subtaskIds = epic.getSubtasks();
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
+    public List<Task> updateAll(Collection<? extends Task> items) {
+        IntLinkedSet ids = Batches.uniqueIds(items);
+        long[] versions = new long[items.size()];
+        int i = 0;
+        for (Task item : items) {
+            if (item instanceof Subtask) {
+                checkEpicLink((Subtask) item);
+            }
+            versions[i++] = nextVersion(stored(item), item);
         }
+        Batches.checkOverlaps(items, intervals, ids::contains);
+
+        Task[] updated = new Task[versions.length];
+        IntLinkedSet touched = new IntLinkedSet();
+        i = 0;
+        for (Task item : items) {
+            switch (item.getType()) {
+                case TASK:
+                    updated[i] = item.withVersion(versions[i]);
+                    putTask(updated[i]);
+                    break;
+                case EPIC:
+                    updated[i] = putEpic((Epic) item, versions[i]);
+                    break;
+                case SUBTASK:
+                    Subtask subtask = ((Subtask) item).withVersion(versions[i]);
+                    Subtask old = putSubtask(subtask);
+                    if (old != null) {
+                        touched.add(old.getEpicId());
+                    }
+                    touched.add(subtask.getEpicId());
+                    updated[i] = subtask;
+                    break;
+            }
+            i++;
+        }
+        refreshEpics(touched);
+        refreshEpicResults(updated);
+        return List.of(updated);
+    }
 
-        boolean allNew = true;
-        boolean allDone = true;
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        IntLinkedSet touched = new IntLinkedSet();
+        for (int id : ids) {
+            if (tasks.containsKey(id)) {
+                dropTask(id);
+            } else if (epics.containsKey(id)) {
+                dropEpic(id);
+            } else {
+                Subtask subtask = dropSubtask(id);
+                if (subtask != null) {
+                    touched.add(subtask.getEpicId());
+                }
+            }
+        }
+        refreshEpics(touched);
+    }
 
-        for (int id : subtaskIds) {
-            Subtask subtask = subtasks.get(id);
-            if (subtask == null) continue;
+    @Override
+    public void deleteAllSubtasksOf(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) return;
 
-            if (subtask.getStatus() != TaskStatus.NEW) {
-                allNew = false;
-            }
-            if (subtask.getStatus() != TaskStatus.DONE) {
-                allDone = false;
-            }
+        for (int subtaskId : epic.getSubtasks()) {
+            dropOrphan(subtaskId);
         }
+        aggregates.get(epicId).clear();
+        refreshEpic(epicId);
+    }
 
-        if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
-        } else if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
-        } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>(statuses.count(status));
+        for (TaskType type : TaskType.values()) {
+            collect(type, status, result);
         }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        List<Task> result = new ArrayList<>(statuses.count(type, status));
+        collect(type, status, result);
+        return result;
+    }
+
+    @Override
+    public int countByStatus(TaskStatus status) {
+        return statuses.count(status);
+    }
+
+    @Override
+    public int countByTypeAndStatus(TaskType type, TaskStatus status) {
+        return statuses.count(type, status);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return search.search(query, limit);
+    }
+
+    // Поиск по нескольким менеджерам в два прохода: сначала складываются статистики всех,
+    // затем каждый оценивает свои совпадения по общей статистике
+    SearchIndex.Statistics searchStatistics(String query) {
+        return search.statistics(query);
+    }
+
+    List<SearchIndex.Hit> searchHits(String query, int limit, SearchIndex.Statistics statistics) {
+        return search.hits(query, limit, statistics);
+    }
+
+    private void collect(TaskType type, TaskStatus status, List<Task> result) {
+        IntObjectMap<? extends Task> storage = type == TaskType.TASK ? tasks
+                : type == TaskType.EPIC ? epics : subtasks;
+        for (int id : statuses.ids(type, status).toArray()) {
+            result.add(storage.get(id));
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Снимок эпика и так обновляется при каждом изменении подзадач; здесь он пересобирается заново
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        refreshEpic(epic.getId());
     }
 }
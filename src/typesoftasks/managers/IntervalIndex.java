@@ -0,0 +1,200 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Task;
+import typesoftasks.util.IntObjectMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Дерамида по (startTime, id), в каждом узле хранится максимальный конец интервала в поддереве.
+// Интервалы полуоткрытые: [startTime, endTime), задачи встык не пересекаются.
+// Границы копируются при вставке, поэтому удаление по id не зависит от последующих изменений задачи.
+public class IntervalIndex {
+
+    private static final class Node {
+        final Task task;
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int priority;
+        LocalDateTime maxEnd;
+        Node left;
+        Node right;
+
+        Node(Task task, int priority) {
+            this.task = task;
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    private final IntObjectMap<Node> nodes = new IntObjectMap<>();
+    private Node root;
+    private int seed = 0x2545F491;
+
+    public void add(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() == null || task.getEndTime() == null) {
+            return;
+        }
+        Node node = new Node(task, nextPriority());
+        root = insert(root, node);
+        nodes.put(node.id, node);
+    }
+
+    public void remove(int id) {
+        Node node = nodes.remove(id);
+        if (node != null) {
+            root = delete(root, node);
+        }
+    }
+
+    public boolean contains(int id) {
+        return nodes.containsKey(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to, int excludeId) {
+        return findOverlap(root, from, to, excludeId);
+    }
+
+    public List<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    private boolean findOverlap(Node node, LocalDateTime from, LocalDateTime to, int excludeId) {
+        while (node != null && node.maxEnd.isAfter(from)) {
+            if (findOverlap(node.left, from, to, excludeId)) {
+                return true;
+            }
+            if (!node.start.isBefore(to)) {
+                return false;
+            }
+            if (node.end.isAfter(from) && node.id != excludeId) {
+                return true;
+            }
+            node = node.right;
+        }
+        return false;
+    }
+
+    private void collect(Node node, LocalDateTime from, LocalDateTime to, List<Task> result) {
+        while (node != null && node.maxEnd.isAfter(from)) {
+            collect(node.left, from, to, result);
+            if (!node.start.isBefore(to)) {
+                return;
+            }
+            if (node.end.isAfter(from)) {
+                result.add(node.task);
+            }
+            node = node.right;
+        }
+    }
+
+    private static boolean less(Node a, Node b) {
+        int byStart = a.start.compareTo(b.start);
+        return byStart < 0 || (byStart == 0 && a.id < b.id);
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (less(node, root)) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node delete(Node root, Node node) {
+        if (root == null) {
+            return null;
+        }
+        if (root == node) {
+            return merge(root.left, root.right);
+        }
+        if (less(node, root)) {
+            root.left = delete(root.left, node);
+        } else {
+            root.right = delete(root.right, node);
+        }
+        update(root);
+        return root;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime max = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(max)) {
+            max = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(max)) {
+            max = node.right.maxEnd;
+        }
+        node.maxEnd = max;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
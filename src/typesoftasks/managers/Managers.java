@@ -3,10 +3,36 @@ package typesoftasks.managers;
 public class Managers {
 
     public static InMemoryTaskManager getDefault() {
-        return new InMemoryTaskManager();
+        return getDefault(getDefaultHistory());
     }
 
+    public static InMemoryTaskManager getDefault(HistoryManager history) {
+        return new InMemoryTaskManager(history);
+    }
+
+    public static ConcurrentTaskManager getConcurrent() {
+        return getConcurrent(getDefaultHistory());
+    }
+
+    public static ConcurrentTaskManager getConcurrent(HistoryManager history) {
+        return new ConcurrentTaskManager(history);
+    }
+
+    public static ShardedTaskManager getSharded() {
+        return getSharded(getDefaultHistory());
+    }
+
+    public static ShardedTaskManager getSharded(HistoryManager history) {
+        return ShardedTaskManager.inMemory(Runtime.getRuntime().availableProcessors(), history);
+    }
+
+    // История без ограничения размера
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // Самые давние просмотры вытесняются, когда задач в истории больше capacity
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
@@ -0,0 +1,6 @@
+package typesoftasks.managers;
+
+public enum PersistenceMode {
+    SNAPSHOT,
+    JOURNAL
+}
@@ -0,0 +1,420 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Task;
+import typesoftasks.util.IntLinkedSet;
+import typesoftasks.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.ToDoubleFunction;
+
+// Обратный индекс по словам заголовка и описания.
+// Слово — последовательность букв и цифр любого алфавита в нижнем регистре, «ё» приравнена к «е».
+// Запрос: слова через пробел должны встретиться все, группы через OR (или |) — хотя бы одна,
+// «слово*» ищет по префиксу. Ранжирование как в BM25 без нормировки по длине:
+// редкие слова и слова из заголовка весят больше.
+final class SearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final double SATURATION = 1.2;
+    private static final int SMALL_POSTING = 8;
+
+    private static final Comparator<Hit> WORST_FIRST =
+            Comparator.comparingDouble((Hit hit) -> hit.score).thenComparing(hit -> -hit.task.getId());
+
+    // Слова документа отсортированы, вес — число вхождений, вхождение в заголовок считается за три
+    private static final class Document {
+        final String title;
+        // Ссылка, а не прочитанная строка: вынесенные описания не должны оседать в индексе
+        final CharSequence description;
+        final String[] terms;
+        final int[] weights;
+        Task task;
+
+        Document(Task task, String[] terms, int[] weights) {
+            this.title = task.getTitle();
+            this.description = task.getDescriptionText();
+            this.task = task;
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    // Большинство слов встречается в паре документов, поэтому до восьми id хранятся в массиве
+    private static final class Posting {
+        final String term;
+        private int[] small = new int[1];
+        private int size;
+        private IntLinkedSet large;
+
+        Posting(String term) {
+            this.term = term;
+        }
+
+        void add(int id) {
+            if (large != null) {
+                large.add(id);
+                return;
+            }
+            if (size == SMALL_POSTING) {
+                large = new IntLinkedSet(SMALL_POSTING * 2);
+                for (int i = 0; i < size; i++) {
+                    large.add(small[i]);
+                }
+                large.add(id);
+                small = null;
+                return;
+            }
+            if (size == small.length) {
+                small = Arrays.copyOf(small, Math.min(size * 2, SMALL_POSTING));
+            }
+            small[size++] = id;
+        }
+
+        void remove(int id) {
+            if (large != null) {
+                large.remove(id);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (small[i] == id) {
+                    small[i] = small[--size];
+                    return;
+                }
+            }
+        }
+
+        int size() {
+            return large != null ? large.size() : size;
+        }
+
+        void forEach(IntConsumer action) {
+            if (large != null) {
+                for (int id : large.toArray()) {
+                    action.accept(id);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    action.accept(small[i]);
+                }
+            }
+        }
+    }
+
+    private static final class Term {
+        final String text;
+        final boolean prefix;
+
+        Term(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+
+    // Найденная задача с оценкой: по ним сливаются результаты нескольких индексов
+    static final class Hit {
+        final Task task;
+        final double score;
+
+        Hit(Task task, double score) {
+            this.task = task;
+            this.score = score;
+        }
+    }
+
+    // Число документов и частоты слов запроса, включая все формы префиксов. Статистики нескольких
+    // индексов складываются, и оценки по сумме совпадают с оценками одного индекса над всеми документами
+    static final class Statistics {
+        private final Map<String, Integer> frequencies = new HashMap<>();
+        private int documents;
+
+        void add(Statistics other) {
+            documents += other.documents;
+            other.frequencies.forEach((term, df) -> frequencies.merge(term, df, Integer::sum));
+        }
+
+        double idf(String term) {
+            return SearchIndex.idf(documents, frequencies.getOrDefault(term, 0));
+        }
+    }
+
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    void add(Task task) {
+        Document previous = documents.get(task.getId());
+        if (previous != null) {
+            if (Objects.equals(previous.title, task.getTitle())
+                    && sameText(previous.description, task.getDescriptionText())) {
+                // Текст не менялся — достаточно запомнить актуальный объект
+                previous.task = task;
+                return;
+            }
+            unlink(task.getId(), previous);
+        }
+        Document document = document(task);
+        for (int i = 0; i < document.terms.length; i++) {
+            Posting posting = postings.computeIfAbsent(document.terms[i], Posting::new);
+            document.terms[i] = posting.term;
+            posting.add(task.getId());
+        }
+        documents.put(task.getId(), document);
+    }
+
+    // Копии задачи несут ту же ссылку на описание, и тогда текст не читается
+    private static boolean sameText(CharSequence previous, CharSequence current) {
+        return previous == current || previous != null && current != null
+                && previous.toString().equals(current.toString());
+    }
+
+    void remove(Task task) {
+        if (task == null) {
+            return;
+        }
+        Document document = documents.remove(task.getId());
+        if (document != null) {
+            unlink(task.getId(), document);
+        }
+    }
+
+    private void unlink(int id, Document document) {
+        for (String term : document.terms) {
+            Posting posting = postings.get(term);
+            posting.remove(id);
+            if (posting.size() == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    List<Task> search(String query, int limit) {
+        int total = documents.size();
+        return ranked(top(query, limit, term -> {
+            Posting posting = postings.get(term);
+            return idf(total, posting != null ? posting.size() : 0);
+        }));
+    }
+
+    Statistics statistics(String query) {
+        Statistics statistics = new Statistics();
+        statistics.documents = documents.size();
+        for (List<Term> clause : parse(query)) {
+            for (Term term : clause) {
+                for (Posting posting : matches(term)) {
+                    statistics.frequencies.put(posting.term, posting.size());
+                }
+            }
+        }
+        return statistics;
+    }
+
+    // Лучшие limit совпадений с редкостью слов из переданной статистики, от лучшего к худшему
+    List<Hit> hits(String query, int limit, Statistics statistics) {
+        PriorityQueue<Hit> top = top(query, limit, statistics::idf);
+        Hit[] result = new Hit[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll();
+        }
+        return List.of(result);
+    }
+
+    // Лучшие limit задач из совпадений нескольких индексов
+    static List<Task> merge(Collection<Hit> hits, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(WORST_FIRST);
+        for (Hit hit : hits) {
+            offer(top, limit, hit);
+        }
+        return ranked(top);
+    }
+
+    private static double idf(int total, int df) {
+        return Math.log(1 + (total - df + 0.5) / (df + 0.5));
+    }
+
+    private PriorityQueue<Hit> top(String query, int limit, ToDoubleFunction<String> idf) {
+        PriorityQueue<Hit> top = new PriorityQueue<>(WORST_FIRST);
+        List<List<Term>> clauses = parse(query);
+        if (clauses.isEmpty() || limit <= 0) {
+            return top;
+        }
+        IntLinkedSet seen = new IntLinkedSet();
+        for (List<Term> clause : clauses) {
+            // Кандидатов даёт самое редкое слово группы, остальные слова проверяются по документу
+            Term driver = clause.get(0);
+            long cheapest = Long.MAX_VALUE;
+            for (Term term : clause) {
+                long cost = matches(term).stream().mapToLong(Posting::size).sum();
+                if (cost < cheapest) {
+                    cheapest = cost;
+                    driver = term;
+                }
+            }
+            // Повторы возможны, только если документ дают несколько групп или несколько форм префикса
+            boolean dedupe = clauses.size() > 1 || driver.prefix;
+            for (Posting posting : matches(driver)) {
+                posting.forEach(id -> {
+                    if (!dedupe || seen.add(id)) {
+                        Document document = documents.get(id);
+                        offer(top, limit, document.task, score(clauses, document, idf));
+                    }
+                });
+            }
+        }
+        return top;
+    }
+
+    // Без индекса: каждый документ разбирается на слова заново, редкость слов не учитывается
+    static List<Task> scan(Collection<? extends Task> tasks, String query, int limit) {
+        List<List<Term>> clauses = parse(query);
+        if (clauses.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(WORST_FIRST);
+        for (Task task : tasks) {
+            offer(top, limit, task, score(clauses, document(task), term -> 1));
+        }
+        return ranked(top);
+    }
+
+    private List<Posting> matches(Term term) {
+        if (!term.prefix) {
+            Posting posting = postings.get(term.text);
+            return posting != null ? List.of(posting) : List.of();
+        }
+        return new ArrayList<>(postings.subMap(term.text, true, term.text + Character.MAX_VALUE, false).values());
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int limit, Task task, double score) {
+        if (score > 0) {
+            offer(top, limit, new Hit(task, score));
+        }
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int limit, Hit hit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (WORST_FIRST.compare(hit, top.peek()) > 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static List<Task> ranked(PriorityQueue<Hit> top) {
+        Task[] result = new Task[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().task;
+        }
+        return List.of(result);
+    }
+
+    // Оценка документа — лучшая из групп, которым он удовлетворяет целиком; 0, если ни одной
+    private static double score(List<List<Term>> clauses, Document document, ToDoubleFunction<String> idf) {
+        double best = 0;
+        for (List<Term> clause : clauses) {
+            double sum = 0;
+            for (Term term : clause) {
+                double termScore = score(term, document, idf);
+                if (termScore == 0) {
+                    sum = 0;
+                    break;
+                }
+                sum += termScore;
+            }
+            best = Math.max(best, sum);
+        }
+        return best;
+    }
+
+    private static double score(Term term, Document document, ToDoubleFunction<String> idf) {
+        int from = Arrays.binarySearch(document.terms, term.text);
+        if (!term.prefix) {
+            return from >= 0 ? idf.applyAsDouble(term.text) * saturate(document.weights[from]) : 0;
+        }
+        double sum = 0;
+        for (int i = from >= 0 ? from : -from - 1;
+             i < document.terms.length && document.terms[i].startsWith(term.text); i++) {
+            sum += idf.applyAsDouble(document.terms[i]) * saturate(document.weights[i]);
+        }
+        return sum;
+    }
+
+    private static double saturate(int weight) {
+        return weight * (SATURATION + 1) / (weight + SATURATION);
+    }
+
+    private static Document document(Task task) {
+        TreeMap<String, Integer> counts = new TreeMap<>();
+        for (String word : tokenize(task.getTitle())) {
+            counts.merge(word, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String word : tokenize(task.getDescription())) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        String[] terms = new String[counts.size()];
+        int[] weights = new int[counts.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            terms[i] = entry.getKey();
+            weights[i++] = entry.getValue();
+        }
+        return new Document(task, terms, weights);
+    }
+
+    private static List<List<Term>> parse(String query) {
+        List<List<Term>> clauses = new ArrayList<>();
+        List<Term> clause = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR") || word.equals("|")) {
+                if (!clause.isEmpty()) {
+                    clauses.add(clause);
+                    clause = new ArrayList<>();
+                }
+                continue;
+            }
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1 && word.endsWith("*");
+                clause.add(new Term(tokens.get(i), prefix));
+            }
+        }
+        if (!clause.isEmpty()) {
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                int lower = Character.toLowerCase(codePoint);
+                token.appendCodePoint(lower == 'ё' ? 'е' : lower);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
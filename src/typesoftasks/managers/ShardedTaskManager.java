@@ -0,0 +1,631 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+import typesoftasks.util.IntLinkedSet;
+import typesoftasks.util.IntObjectMap;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+// Задачи разложены по независимым шардам, каждый — свой InMemoryTaskManager (или FileBackedTaskManager
+// со своим файлом) под своей блокировкой, поэтому запись в разные шарды идёт параллельно.
+// Эпик и его подзадачи всегда в одном шарде, задачи и новые эпики попадают в случайный шард.
+// Id выдаёт сам шард из своего диапазона, и шард задачи вычисляется по id без справочника.
+// Общими остаются две вещи. Пересечения по времени: шарды дублируют свои интервалы в общий индекс,
+// и запись задачи со временем проверяет его под scheduleLock, не блокируя чужие шарды. И история просмотров:
+// она ведётся только здесь, шарды читаются мимо своей истории, поэтому между запусками она не сохраняется.
+// Списки и представления — снимки, собранные по шардам, а не живые коллекции.
+public class ShardedTaskManager implements TaskManager, AutoCloseable {
+
+    private final InMemoryTaskManager[] shards;
+    private final ReentrantLock[] locks;
+    // Добавить интервал может только запись со временем под scheduleLock, поэтому проверка по intervals
+    // и последующая запись не разделяются чужим добавлением. Сам индекс защищён своим монитором
+    private final Object scheduleLock = new Object();
+    private final IntervalIndex intervals = new IntervalIndex();
+    private final HistoryManager historyManager;
+
+    public ShardedTaskManager(List<? extends InMemoryTaskManager> shards) {
+        this(shards, new InMemoryHistoryManager());
+    }
+
+    // Общая история всех шардов; читается из потоков разных шардов, поэтому должна быть потокобезопасной
+    public ShardedTaskManager(List<? extends InMemoryTaskManager> shards, HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один шард");
+        }
+        this.shards = shards.toArray(new InMemoryTaskManager[0]);
+        this.locks = new ReentrantLock[this.shards.length];
+        for (int i = 0; i < this.shards.length; i++) {
+            InMemoryTaskManager shard = this.shards[i];
+            checkOwnership(i, shard);
+            shard.useIdRange(i, this.shards.length);
+            locks[i] = new ReentrantLock();
+            shard.shareIntervals(intervals);
+        }
+    }
+
+    public static ShardedTaskManager inMemory(int shards) {
+        return inMemory(shards, new InMemoryHistoryManager());
+    }
+
+    public static ShardedTaskManager inMemory(int shards, HistoryManager historyManager) {
+        List<InMemoryTaskManager> managers = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            managers.add(new InMemoryTaskManager());
+        }
+        return new ShardedTaskManager(managers, historyManager);
+    }
+
+    // Файлы shard-0.csv, shard-1.csv, ... в directory; число шардов при повторном открытии должно совпадать
+    public static ShardedTaskManager fileBacked(File directory, int shards, PersistenceMode mode) {
+        File extra = new File(directory, "shard-" + shards + ".csv");
+        if (extra.exists() || FileBackedTaskManager.journalFile(extra).exists()) {
+            throw new ManagerSaveException("В " + directory + " больше " + shards + " шардов");
+        }
+        List<FileBackedTaskManager> managers = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            File file = new File(directory, "shard-" + i + ".csv");
+            managers.add(mode == PersistenceMode.JOURNAL || file.exists()
+                    ? FileBackedTaskManager.loadFromFile(file, mode)
+                    : new FileBackedTaskManager(file, mode));
+        }
+        return new ShardedTaskManager(managers);
+    }
+
+    private void checkOwnership(int index, InMemoryTaskManager shard) {
+        for (Task task : shard.getAllTasksView()) {
+            if (shardOf(task.getId()) != index) {
+                throw new ManagerSaveException("Задача " + task.getId() + " не принадлежит шарду " + index
+                        + ": данные созданы при другом числе шардов");
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private int shardOf(int id) {
+        return InMemoryTaskManager.shardOf(id, shards.length);
+    }
+
+    private int randomShard() {
+        return ThreadLocalRandom.current().nextInt(shards.length);
+    }
+
+    private <T> T call(int index, Supplier<T> action) {
+        locks[index].lock();
+        try {
+            return action.get();
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    private void run(int index, Runnable action) {
+        locks[index].lock();
+        try {
+            action.run();
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    // Шарды блокируются по возрастанию номера, пакет со временем сначала берёт scheduleLock
+    private <T> T batch(int[] target, boolean timed, Supplier<T> action) {
+        if (!timed) {
+            return locked(involved(target), action);
+        }
+        synchronized (scheduleLock) {
+            return locked(involved(target), action);
+        }
+    }
+
+    private <T> T locked(int[] indexes, Supplier<T> action) {
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                locks[index].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[indexes[i]].unlock();
+            }
+        }
+    }
+
+    private int[] involved(int[] target) {
+        boolean[] used = new boolean[shards.length];
+        int count = 0;
+        for (int index : target) {
+            if (!used[index]) {
+                used[index] = true;
+                count++;
+            }
+        }
+        int[] result = new int[count];
+        int next = 0;
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                result[next++] = i;
+            }
+        }
+        return result;
+    }
+
+    private static boolean timed(Task task) {
+        return !(task instanceof Epic) && task.getStartTime() != null && task.getEndTime() != null;
+    }
+
+    private static boolean timed(Collection<? extends Task> batch) {
+        for (Task task : batch) {
+            if (timed(task)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Вызывается под scheduleLock
+    private void checkOverlap(Task task) {
+        synchronized (intervals) {
+            for (Task other : intervals.overlapping(task.getStartTime(), task.getEndTime())) {
+                if (other.getId() != task.getId()) {
+                    throw new IllegalArgumentException(
+                            "Задача пересекается по времени с задачей " + other.getId() + ".");
+                }
+            }
+        }
+    }
+
+    // Вызывается под scheduleLock
+    private void checkOverlaps(Collection<? extends Task> batch, IntPredicate replaced) {
+        synchronized (intervals) {
+            Batches.checkOverlaps(batch, intervals, replaced);
+        }
+    }
+
+    @Override
+    public Task createTask(String title, String description) {
+        int index = randomShard();
+        return call(index, () -> shards[index].createTask(title, description));
+    }
+
+    @Override
+    public Epic createEpic(String title, String description) {
+        int index = randomShard();
+        return call(index, () -> shards[index].createEpic(title, description));
+    }
+
+    @Override
+    public Subtask createSubtask(String title, String description, int epicId) {
+        int index = shardOf(epicId);
+        return call(index, () -> shards[index].createSubtask(title, description, epicId));
+    }
+
+    // Шард читается мимо своей истории: просмотр записывается только в общую
+    @Override
+    public Subtask getSubtaskById(int id) {
+        int index = shardOf(id);
+        return call(index, () -> viewed(shards[index].getSubtaskMap().get(id)));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        int index = shardOf(id);
+        return call(index, () -> viewed(shards[index].getTaskMap().get(id)));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        int index = shardOf(id);
+        return call(index, () -> viewed(shards[index].getEpicMap().get(id)));
+    }
+
+    @Override
+    public Task find(int id) {
+        int index = shardOf(id);
+        return call(index, () -> shards[index].find(id));
+    }
+
+    // Вызывается под блокировкой шарда задачи, поэтому не расходится с её удалением
+    private <T extends Task> T viewed(T task) {
+        if (task != null) {
+            historyManager.add(task);
+        }
+        return task;
+    }
+
+    @Override
+    public Task updateTask(Task task) {
+        int index = shardOf(task.getId());
+        if (!timed(task)) {
+            return call(index, () -> shards[index].updateTask(task));
+        }
+        synchronized (scheduleLock) {
+            checkOverlap(task);
+            return call(index, () -> shards[index].updateTask(task));
+        }
+    }
+
+    @Override
+    public Epic updateEpic(Epic epic) {
+        int index = shardOf(epic.getId());
+        return call(index, () -> shards[index].updateEpic(epic));
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask subtask) {
+        int index = shardOf(subtask.getId());
+        checkSameShard(index, subtask);
+        if (!timed(subtask)) {
+            return call(index, () -> shards[index].updateSubtask(subtask));
+        }
+        synchronized (scheduleLock) {
+            checkOverlap(subtask);
+            return call(index, () -> shards[index].updateSubtask(subtask));
+        }
+    }
+
+    private void checkSameShard(int index, Subtask subtask) {
+        if (shardOf(subtask.getEpicId()) != index) {
+            throw new IllegalArgumentException("Подзадачу " + subtask.getId()
+                    + " нельзя перенести в эпик " + subtask.getEpicId() + " из другого шарда.");
+        }
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        List<Task> all = new ArrayList<>();
+        all.addAll(collect(manager -> manager.getTaskMap().values()));
+        all.addAll(collect(InMemoryTaskManager::getAllEpics));
+        all.addAll(collect(InMemoryTaskManager::getAllSubtasks));
+        return all;
+    }
+
+    @Override
+    public Collection<Task> getAllTasksView() {
+        return Collections.unmodifiableList(getAllTasks());
+    }
+
+    @Override
+    public Collection<Epic> getAllEpics() {
+        return Collections.unmodifiableList(collect(InMemoryTaskManager::getAllEpics));
+    }
+
+    @Override
+    public Collection<Subtask> getAllSubtasks() {
+        return Collections.unmodifiableList(collect(InMemoryTaskManager::getAllSubtasks));
+    }
+
+    private <T> List<T> collect(Function<InMemoryTaskManager, Collection<? extends T>> source) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            InMemoryTaskManager shard = shards[i];
+            run(i, () -> result.addAll(source.apply(shard)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByEpic(int epicId) {
+        int index = shardOf(epicId);
+        return call(index, () -> shards[index].getSubtasksByEpic(epicId));
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        int index = shardOf(id);
+        run(index, () -> {
+            shards[index].deleteTaskById(id);
+            historyManager.remove(id);
+        });
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        int index = shardOf(id);
+        run(index, () -> {
+            forgetSubtasks(shards[index], id);
+            shards[index].deleteEpicById(id);
+            historyManager.remove(id);
+        });
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        int index = shardOf(id);
+        run(index, () -> {
+            shards[index].deleteSubtaskById(id);
+            historyManager.remove(id);
+        });
+    }
+
+    private void forgetSubtasks(InMemoryTaskManager shard, int epicId) {
+        Epic epic = shard.getEpicMap().get(epicId);
+        if (epic != null) {
+            for (int subtaskId : epic.getSubtasks()) {
+                historyManager.remove(subtaskId);
+            }
+        }
+    }
+
+    // Эпики и задачи пакета попадают в один шард вместе с подзадачами новых эпиков,
+    // подзадачи существующих эпиков — в шард своего эпика
+    @Override
+    public List<Task> createAll(Collection<? extends Task> drafts) {
+        IntObjectMap<Epic> draftEpics = Batches.draftEpics(drafts);
+        int home = randomShard();
+        int[] target = new int[drafts.size()];
+        int i = 0;
+        for (Task draft : drafts) {
+            target[i++] = draft instanceof Subtask && !draftEpics.containsKey(((Subtask) draft).getEpicId())
+                    ? shardOf(((Subtask) draft).getEpicId()) : home;
+        }
+        boolean timed = timed(drafts);
+        return batch(target, timed, () -> {
+            Batches.checkEpicsExist(drafts, draftEpics,
+                    epicId -> shards[shardOf(epicId)].getEpicMap().containsKey(epicId));
+            if (timed) {
+                checkOverlaps(drafts, id -> false);
+            }
+            return scatter(drafts, target, InMemoryTaskManager::createAll);
+        });
+    }
+
+    @Override
+    public List<Task> updateAll(Collection<? extends Task> items) {
+        IntLinkedSet ids = Batches.uniqueIds(items);
+        int[] target = new int[items.size()];
+        int i = 0;
+        for (Task item : items) {
+            target[i] = shardOf(item.getId());
+            if (item instanceof Subtask) {
+                checkSameShard(target[i], (Subtask) item);
+            }
+            i++;
+        }
+        boolean timed = timed(items);
+        return batch(target, timed, () -> {
+            // Версии проверяются во всех шардах до первого изменения
+            for (Task item : items) {
+                InMemoryTaskManager.nextVersion(shards[shardOf(item.getId())].stored(item), item);
+            }
+            if (timed) {
+                checkOverlaps(items, ids::contains);
+            }
+            return scatter(items, target, InMemoryTaskManager::updateAll);
+        });
+    }
+
+    // Раздаёт пакет шардам и собирает результат в исходном порядке
+    private List<Task> scatter(Collection<? extends Task> items, int[] target,
+                               ShardBatch action) {
+        List<List<Task>> groups = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            groups.add(new ArrayList<>());
+        }
+        int i = 0;
+        for (Task item : items) {
+            groups.get(target[i++]).add(item);
+        }
+        List<List<Task>> results = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            results.add(groups.get(s).isEmpty() ? List.of() : action.apply(shards[s], groups.get(s)));
+        }
+        Task[] merged = new Task[target.length];
+        int[] cursor = new int[shards.length];
+        for (i = 0; i < target.length; i++) {
+            merged[i] = results.get(target[i]).get(cursor[target[i]]++);
+        }
+        return List.of(merged);
+    }
+
+    private interface ShardBatch {
+        List<Task> apply(InMemoryTaskManager shard, List<Task> items);
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        int[] target = new int[ids.size()];
+        List<List<Integer>> groups = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            groups.add(new ArrayList<>());
+        }
+        int i = 0;
+        for (int id : ids) {
+            target[i] = shardOf(id);
+            groups.get(target[i++]).add(id);
+        }
+        batch(target, false, () -> {
+            for (int s = 0; s < shards.length; s++) {
+                if (groups.get(s).isEmpty()) {
+                    continue;
+                }
+                for (int id : groups.get(s)) {
+                    forgetSubtasks(shards[s], id);
+                    historyManager.remove(id);
+                }
+                shards[s].deleteAll(groups.get(s));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasksOf(int epicId) {
+        int index = shardOf(epicId);
+        run(index, () -> {
+            forgetSubtasks(shards[index], epicId);
+            shards[index].deleteAllSubtasksOf(epicId);
+        });
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        return collect(shard -> shard.getByStatus(status));
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        return collect(shard -> shard.getByTypeAndStatus(type, status));
+    }
+
+    @Override
+    public int countByStatus(TaskStatus status) {
+        int count = 0;
+        for (int i = 0; i < shards.length; i++) {
+            InMemoryTaskManager shard = shards[i];
+            count += call(i, () -> shard.countByStatus(status));
+        }
+        return count;
+    }
+
+    @Override
+    public int countByTypeAndStatus(TaskType type, TaskStatus status) {
+        int count = 0;
+        for (int i = 0; i < shards.length; i++) {
+            InMemoryTaskManager shard = shards[i];
+            count += call(i, () -> shard.countByTypeAndStatus(type, status));
+        }
+        return count;
+    }
+
+    // Редкость слов считается по всем шардам сразу, поэтому порядок тот же, что у одного индекса.
+    // Между проходами шарды не заблокированы: запись посередине сдвинет статистику лишь на свои слова
+    @Override
+    public List<Task> search(String query, int limit) {
+        SearchIndex.Statistics statistics = new SearchIndex.Statistics();
+        for (int i = 0; i < shards.length; i++) {
+            InMemoryTaskManager shard = shards[i];
+            statistics.add(call(i, () -> shard.searchStatistics(query)));
+        }
+        return SearchIndex.merge(collect(shard -> shard.searchHits(query, limit, statistics)), limit);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        int index = shardOf(epic.getId());
+        run(index, () -> shards[index].updateEpicStatus(epic));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return merge(shard -> shard.getPrioritizedTasks(), Integer.MAX_VALUE);
+    }
+
+    // Шарды меняются под своими блокировками, поэтому живое представление поверх них читало бы
+    // TreeSet шарда без блокировки. Вместо него — снимок слитого расписания, O(n log n) на вызов
+    @Override
+    public NavigableSet<Task> getPrioritizedTasksView() {
+        TreeSet<Task> snapshot = new TreeSet<>(InMemoryTaskManager.PRIORITY_ORDER);
+        snapshot.addAll(getPrioritizedTasks());
+        return Collections.unmodifiableNavigableSet(snapshot);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to) {
+        return merge(shard -> shard.getPrioritizedTasksBetween(from, to), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Task cursor, int limit) {
+        return merge(shard -> shard.getPrioritizedTasksAfter(cursor, limit), limit);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        synchronized (intervals) {
+            return intervals.overlapping(from, to);
+        }
+    }
+
+    // Слияние k отсортированных списков шардов через кучу их текущих голов
+    private List<Task> merge(Function<InMemoryTaskManager, List<Task>> source, int limit) {
+        Comparator<Task> order = InMemoryTaskManager.PRIORITY_ORDER;
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        int total = 0;
+        for (int i = 0; i < shards.length; i++) {
+            InMemoryTaskManager shard = shards[i];
+            List<Task> sorted = call(i, () -> source.apply(shard));
+            total += sorted.size();
+            if (!sorted.isEmpty()) {
+                heads.add(new Cursor(sorted));
+            }
+        }
+        List<Task> result = new ArrayList<>(Math.min(total, limit));
+        while (!heads.isEmpty() && result.size() < limit) {
+            Cursor cursor = heads.poll();
+            result.add(cursor.head());
+            if (++cursor.position < cursor.tasks.size()) {
+                heads.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    private static final class Cursor {
+        final List<Task> tasks;
+        int position;
+
+        Cursor(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        Task head() {
+            return tasks.get(position);
+        }
+    }
+
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        for (InMemoryTaskManager shard : shards) {
+            if (shard instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) shard).close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = new ManagerSaveException("Ошибка при закрытии шардов", e);
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
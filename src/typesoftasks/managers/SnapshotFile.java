@@ -0,0 +1,213 @@
+package typesoftasks.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Снимок пишется целиком во временный файл рядом с целевым и подменяет его атомарным переименованием,
+// поэтому после сбоя на месте снимка лежит либо старая, либо новая версия, но не обрезанная.
+// Файл заканчивается строкой "\n#crc32c=XXXXXXXX\n" с контрольной суммой всего, что перед ней.
+// Текстовые снимки начинаются строкой TEXT_MARKER: без неё файл записан до появления суммы,
+// и только такому файлу разрешено обходиться без неё. У бинарного снимка то же решает версия формата.
+final class SnapshotFile {
+
+    private static final String TRAILER_PREFIX = "\n#crc32c=";
+    static final int TRAILER_BYTES = TRAILER_PREFIX.length() + 8 + 1;
+    static final String TEXT_MARKER = "#crc32c\n";
+    private static final int VERIFY_BUFFER = 64 * 1024;
+
+    interface Body {
+        void writeTo(WritableByteChannel channel) throws IOException;
+    }
+
+    private SnapshotFile() {
+    }
+
+    static File tempFile(File target) {
+        return new File(target.getPath() + ".tmp");
+    }
+
+    static void write(File target, FsyncPolicy policy, Body body) throws IOException {
+        Path temp = tempFile(target).toPath();
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChecksumChannel checked = new ChecksumChannel(channel);
+                body.writeTo(checked);
+                ByteBuffer trailer = ByteBuffer.wrap(trailer(checked.crc.getValue()));
+                while (trailer.hasRemaining()) {
+                    channel.write(trailer);
+                }
+                if (policy != FsyncPolicy.NONE) {
+                    channel.force(policy == FsyncPolicy.FULL);
+                }
+            }
+            move(temp, target.toPath());
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+        if (policy == FsyncPolicy.FULL) {
+            syncDirectory(target.toPath().toAbsolutePath().getParent());
+        }
+    }
+
+    static void writeText(File target, FsyncPolicy policy, Body body) throws IOException {
+        write(target, policy, channel -> {
+            ByteBuffer marker = ByteBuffer.wrap(TEXT_MARKER.getBytes(StandardCharsets.US_ASCII));
+            while (marker.hasRemaining()) {
+                channel.write(marker);
+            }
+            body.writeTo(channel);
+        });
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Файловая система не умеет атомарно — заменяем как получится, временный файл всё равно цел
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Не все ОС позволяют открыть каталог как файл, снимок при этом уже на месте
+        }
+    }
+
+    static boolean hasTextMarker(ByteBuffer content) {
+        if (content.limit() < TEXT_MARKER.length()) {
+            return false;
+        }
+        for (int i = 0; i < TEXT_MARKER.length(); i++) {
+            if (content.get(i) != TEXT_MARKER.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean hasTextMarker(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(TEXT_MARKER.length());
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // дочитываем начало файла
+        }
+        return hasTextMarker(head.flip());
+    }
+
+    // Проверяет контрольную сумму содержимого в памяти. Возвращает длину данных без строки с суммой
+    // или размер содержимого, если суммы нет и формат её не требует.
+    static int verify(ByteBuffer content, File source, boolean trailerRequired) {
+        int size = content.limit();
+        int payload = size - TRAILER_BYTES;
+        if (payload < 0 || !hasTrailerPrefix(content, payload)) {
+            return (int) missingTrailer(size, source, trailerRequired);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(content.duplicate().position(0).limit(payload));
+        checkTrailer(content, payload, crc.getValue(), source);
+        return payload;
+    }
+
+    // То же для файла любого размера: сумма считается потоком через буфер, файл целиком не отображается
+    static long verify(FileChannel channel, File source, boolean trailerRequired) throws IOException {
+        long size = channel.size();
+        long payload = size - TRAILER_BYTES;
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+        if (payload >= 0) {
+            while (trailer.hasRemaining() && channel.read(trailer, payload + trailer.position()) > 0) {
+                // дочитываем строку с суммой
+            }
+        }
+        if (payload < 0 || trailer.hasRemaining() || !hasTrailerPrefix(trailer, 0)) {
+            return missingTrailer(size, source, trailerRequired);
+        }
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(VERIFY_BUFFER);
+        long position = 0;
+        while (position < payload) {
+            buffer.clear().limit((int) Math.min(VERIFY_BUFFER, payload - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new ManagerSaveException("Снимок изменился во время проверки: " + source);
+            }
+            crc.update(buffer.flip());
+            position += read;
+        }
+        checkTrailer(trailer, 0, crc.getValue(), source);
+        return payload;
+    }
+
+    private static long missingTrailer(long size, File source, boolean trailerRequired) {
+        if (trailerRequired) {
+            throw new ManagerSaveException("Снимок обрезан, нет контрольной суммы: " + source);
+        }
+        return size;
+    }
+
+    private static void checkTrailer(ByteBuffer content, int offset, long crc, File source) {
+        byte[] expected = trailer(crc);
+        for (int i = 0; i < TRAILER_BYTES; i++) {
+            if (content.get(offset + i) != expected[i]) {
+                throw new ManagerSaveException("Контрольная сумма снимка не совпадает: " + source);
+            }
+        }
+    }
+
+    private static boolean hasTrailerPrefix(ByteBuffer content, int offset) {
+        for (int i = 0; i < TRAILER_PREFIX.length(); i++) {
+            if (content.get(offset + i) != TRAILER_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] trailer(long crc) {
+        return (TRAILER_PREFIX + String.format("%08x", crc) + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class ChecksumChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private final CRC32C crc = new CRC32C();
+
+        private ChecksumChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            ByteBuffer written = src.duplicate();
+            int count = channel.write(src);
+            crc.update(written.limit(written.position() + count));
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // Канал закрывает SnapshotFile.write после строки с контрольной суммой
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package typesoftasks.managers;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
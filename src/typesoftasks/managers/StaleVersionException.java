@@ -0,0 +1,32 @@
+package typesoftasks.managers;
+
+// Обновление сделано по устаревшей версии задачи: её успели изменить или удалить.
+// Вызывающий перечитывает задачу и повторяет изменение поверх актуальной версии.
+public class StaleVersionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int taskId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public StaleVersionException(int taskId, long expectedVersion, long actualVersion) {
+        super("Задача " + taskId + " изменилась: обновление сделано по версии " + expectedVersion
+                + ", актуальная версия " + (actualVersion == 0 ? "отсутствует" : actualVersion));
+        this.taskId = taskId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public int getTaskId() {
+        return taskId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    // 0, если задачу удалили
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,63 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
+import typesoftasks.util.IntLinkedSet;
+
+// Вторичный индекс: для каждой пары тип × статус — id задач в порядке попадания в индекс.
+final class StatusIndex {
+
+    private static final int STATUSES = TaskStatus.values().length;
+
+    private final IntLinkedSet[] buckets = new IntLinkedSet[TaskType.values().length * STATUSES];
+
+    StatusIndex() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntLinkedSet();
+        }
+    }
+
+    void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        int base = task.getType().ordinal() * STATUSES;
+        int target = base + task.getStatus().ordinal();
+        if (buckets[target].contains(task.getId())) {
+            return;
+        }
+        for (int i = base; i < base + STATUSES; i++) {
+            if (i != target) {
+                buckets[i].remove(task.getId());
+            }
+        }
+        buckets[target].add(task.getId());
+    }
+
+    void remove(Task task) {
+        if (task == null) {
+            return;
+        }
+        int base = task.getType().ordinal() * STATUSES;
+        for (int i = base; i < base + STATUSES; i++) {
+            buckets[i].remove(task.getId());
+        }
+    }
+
+    IntLinkedSet ids(TaskType type, TaskStatus status) {
+        return buckets[type.ordinal() * STATUSES + status.ordinal()];
+    }
+
+    int count(TaskType type, TaskStatus status) {
+        return ids(type, status).size();
+    }
+
+    int count(TaskStatus status) {
+        int total = 0;
+        for (TaskType type : TaskType.values()) {
+            total += count(type, status);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,63 @@
+package typesoftasks.managers;
+
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+
+// Событие об изменении в менеджере. Номера идут подряд, поэтому подписчик, чей буфер переполнился,
+// видит пропуск по номеру и перечитывает состояние целиком.
+// Задачи и эпики — неизменяемые снимки, поэтому событие хранит сами снимки, а статусы берёт из них.
+public final class TaskEvent {
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED,
+        EPIC_STATUS_CHANGED,
+        HISTORY_TOUCHED
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final Task task;
+    private final Task previous;
+
+    TaskEvent(long sequence, Kind kind, Task task, Task previous) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.task = task;
+        this.previous = previous;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    // Для DELETED — последняя сохранённая версия удалённой задачи
+    public Task getTask() {
+        return task;
+    }
+
+    public int getTaskId() {
+        return task.getId();
+    }
+
+    public TaskStatus getStatus() {
+        return task.getStatus();
+    }
+
+    // Заполнен только у EPIC_STATUS_CHANGED: статус из предыдущего снимка эпика
+    public TaskStatus getPreviousStatus() {
+        return previous != null ? previous.getStatus() : null;
+    }
+
+    @Override
+    public String toString() {
+        TaskStatus previousStatus = getPreviousStatus();
+        return sequence + " " + kind + " " + task.getType() + " " + task.getId() + " " + getStatus()
+                + (previousStatus != null ? " (было " + previousStatus + ")" : "");
+    }
+}
@@ -0,0 +1,213 @@
+package typesoftasks.managers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+// Формат записи: [длина payload][op][payload][crc32(op + payload)].
+// Недописанная или повреждённая запись в хвосте считается несуществующей и обрезается,
+// повреждение посреди журнала — ошибка чтения.
+class TaskJournal implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte VIEW = 3;
+
+    private static final int MAX_PAYLOAD = 1 << 24;
+
+    interface Visitor {
+        void put(String line);
+
+        void delete(int id);
+
+        void view(int id);
+    }
+
+    private final File file;
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(256);
+    private final CRC32 crc = new CRC32();
+    private DataOutputStream out;
+    private FileChannel channel;
+    // Файл журнала создан, но запись о нём в каталоге ещё не дожидалась диска
+    private boolean newFile;
+    private int records;
+
+    TaskJournal(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int size() {
+        return records;
+    }
+
+    void replay(Visitor visitor) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        long fileLength = file.length();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (validLength < fileLength) {
+                long remaining = fileLength - validLength;
+                if (remaining < Integer.BYTES + 1 + Integer.BYTES) {
+                    break; // на заголовок и сумму не хватает байт — запись недописана
+                }
+                int length = in.readInt();
+                if (length < 0 || length > MAX_PAYLOAD) {
+                    checkTornTail(validLength, "некорректная длина записи " + length);
+                    break;
+                }
+                long recordLength = Integer.BYTES + 1L + length + Integer.BYTES;
+                if (recordLength > remaining) {
+                    break; // запись обрывается на конце файла
+                }
+                byte[] body = new byte[length + 1];
+                in.readFully(body);
+                int checksum = in.readInt();
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    if (recordLength < remaining) {
+                        checkTornTail(validLength, "контрольная сумма не совпадает");
+                    }
+                    break;
+                }
+                apply(body, visitor);
+                validLength += recordLength;
+                records++;
+            }
+        }
+        if (validLength < fileLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+    }
+
+    // Отбрасывать можно только недописанный хвост: за битой записью не должно быть ничего, кроме нулей,
+    // которыми файловая система заполняет выделенное, но не записанное до сбоя место. Иначе за ней
+    // остались бы целые записи, и обрезка молча потеряла бы подтверждённые изменения.
+    private void checkTornTail(long offset, String reason) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            in.skipNBytes(offset);
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b != 0) {
+                    throw new ManagerSaveException("Журнал повреждён на смещении " + offset + " (" + reason
+                            + "): " + file);
+                }
+            }
+        }
+    }
+
+    private static void apply(byte[] body, Visitor visitor) {
+        switch (body[0]) {
+            case PUT:
+                visitor.put(new String(body, 1, body.length - 1, StandardCharsets.UTF_8));
+                break;
+            case DELETE:
+                visitor.delete(readInt(body));
+                break;
+            case VIEW: // история теперь хранится в отдельном файле, записи остаются в старых журналах
+                visitor.view(readInt(body));
+                break;
+            default:
+                throw new ManagerSaveException("Неизвестный тип записи журнала: " + body[0]);
+        }
+    }
+
+    private static int readInt(byte[] body) {
+        return ((body[1] & 0xFF) << 24) | ((body[2] & 0xFF) << 16) | ((body[3] & 0xFF) << 8) | (body[4] & 0xFF);
+    }
+
+    void appendPut(String line) throws IOException {
+        append(PUT, line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void appendDelete(int id) throws IOException {
+        append(DELETE, intBytes(id));
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private void append(byte op, byte[] payload) throws IOException {
+        recordBuffer.reset();
+        recordBuffer.write(op);
+        recordBuffer.write(payload);
+        crc.reset();
+        crc.update(recordBuffer.toByteArray());
+
+        DataOutputStream stream = ensureOpen();
+        stream.writeInt(payload.length);
+        recordBuffer.writeTo(stream);
+        stream.writeInt((int) crc.getValue());
+        records++;
+    }
+
+    // Сбрасывает буфер в файл и по политике дожидается записи на диск: без force данные переживают
+    // падение процесса, но не отключение питания
+    void flush(FsyncPolicy policy) throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.flush();
+        if (policy != FsyncPolicy.NONE) {
+            channel.force(policy == FsyncPolicy.FULL);
+        }
+        if (policy == FsyncPolicy.FULL && newFile) {
+            SnapshotFile.syncDirectory(file.toPath().toAbsolutePath().getParent());
+            newFile = false;
+        }
+    }
+
+    void reset() throws IOException {
+        close();
+        new FileOutputStream(file).close();
+        records = 0;
+    }
+
+    private DataOutputStream ensureOpen() throws IOException {
+        if (out == null) {
+            newFile |= !file.exists();
+            FileOutputStream stream = new FileOutputStream(file, true);
+            channel = stream.getChannel();
+            out = new DataOutputStream(new BufferedOutputStream(stream));
+        }
+        return out;
+    }
+
+    void close(FsyncPolicy policy) throws IOException {
+        try {
+            flush(policy);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            channel = null;
+        }
+    }
+}
@@ -3,9 +3,13 @@ package typesoftasks.managers;
 import typesoftasks.tasks.Epic;
 import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.NavigableSet;
 
 public interface TaskManager {
 
@@ -21,14 +25,22 @@ public interface TaskManager {
 
     Epic getEpic(int id);
 
-    void updateTask(Task task);
+    // Задача любого типа по id без записи в историю просмотров; null, если её нет
+    Task find(int id);
 
-    void updateEpic(Epic epic);
+    // Обновления возвращают сохранённую версию. Задача с версией, отличной от сохранённой,
+    // отклоняется StaleVersionException; черновик с версией Task.UNVERSIONED записывается без проверки
+    Task updateTask(Task task);
 
-    void updateSubtask(Subtask subtask);
+    // Версия эпика растёт только от его обновлений; изменения подзадач её не трогают
+    Epic updateEpic(Epic epic);
+
+    Subtask updateSubtask(Subtask subtask);
 
     List<Task> getAllTasks();
 
+    Collection<Task> getAllTasksView();
+
     Collection<Epic> getAllEpics();
 
     Collection<Subtask> getAllSubtasks();
@@ -41,10 +53,46 @@ public interface TaskManager {
 
     void deleteSubtaskById(int id);
 
+    List<Task> createAll(Collection<? extends Task> drafts);
+
+    // Версии проверяются у всех задач до первого изменения
+    List<Task> updateAll(Collection<? extends Task> tasks);
+
+    void deleteAll(Collection<Integer> ids);
+
+    void deleteAllSubtasksOf(int epicId);
+
+    List<Task> getByStatus(TaskStatus status);
+
+    List<Task> getByTypeAndStatus(TaskType type, TaskStatus status);
+
+    int countByStatus(TaskStatus status);
+
+    int countByTypeAndStatus(TaskType type, TaskStatus status);
+
+    // Слова через пробел — все сразу, группы через OR — любая, «слово*» — по префиксу; лучшие limit задач
+    List<Task> search(String query, int limit);
+
     List<Task> getHistory();
 
     void updateEpicStatus(Epic epic);
 
     List<Task> getPrioritizedTasks();
 
+    // Неизменяемое представление расписания. У InMemoryTaskManager оно живое и не копирует задачи;
+    // потокобезопасные менеджеры отдают снимок на момент вызова, как и getAllTasksView
+    NavigableSet<Task> getPrioritizedTasksView();
+
+    List<Task> getPrioritizedTasksBetween(LocalDateTime from, LocalDateTime to);
+
+    List<Task> getPrioritizedTasksAfter(Task cursor, int limit);
+
+    List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to);
+
+    // Можно ли вызывать методы менеджера из нескольких потоков без внешней синхронизации.
+    // Если нет, вызывающий обращается к менеджеру под его монитором
+    default boolean isThreadSafe() {
+        return false;
+    }
+
 }
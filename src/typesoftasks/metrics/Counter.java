@@ -0,0 +1,23 @@
+package typesoftasks.metrics;
+
+public interface Counter {
+
+    Counter NOOP = new Counter() {
+        @Override
+        public void add(long delta) {
+        }
+
+        @Override
+        public long get() {
+            return 0;
+        }
+    };
+
+    void add(long delta);
+
+    long get();
+
+    default void increment() {
+        add(1);
+    }
+}
@@ -0,0 +1,31 @@
+package typesoftasks.metrics;
+
+import java.util.function.LongSupplier;
+
+// Точка подключения метрик к менеджерам. Менеджер один раз запрашивает свои таймеры и счётчики
+// в setMetrics и дальше вызывает их напрямую, без поиска по имени на горячем пути.
+public interface Metrics {
+
+    Metrics NOOP = new Metrics() {
+        @Override
+        public Timer timer(String name) {
+            return Timer.NOOP;
+        }
+
+        @Override
+        public Counter counter(String name) {
+            return Counter.NOOP;
+        }
+
+        @Override
+        public void gauge(String name, LongSupplier value) {
+        }
+    };
+
+    Timer timer(String name);
+
+    Counter counter(String name);
+
+    // Значение датчика читается только при снятии снимка, возможно из другого потока
+    void gauge(String name, LongSupplier value);
+}
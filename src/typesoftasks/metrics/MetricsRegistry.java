@@ -0,0 +1,105 @@
+package typesoftasks.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Реестр метрик в памяти процесса. Снимок доступен текстом через dump() и через JMX после registerMBean.
+public class MetricsRegistry implements Metrics, MetricsRegistryMBean {
+
+    private static final class AdderCounter implements Counter {
+        private final LongAdder value = new LongAdder();
+
+        @Override
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        @Override
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    private final ConcurrentHashMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new AdderCounter());
+    }
+
+    // Повторная регистрация заменяет датчик: так новый менеджер перехватывает имена старого
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public long getGauge(String name) {
+        LongSupplier gauge = gauges.get(name);
+        if (gauge == null) {
+            throw new IllegalArgumentException("Датчик не найден: " + name);
+        }
+        return gauge.getAsLong();
+    }
+
+    // Строка на метрику, имена по алфавиту, время в микросекундах
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, AdderCounter> entry : new TreeMap<>(counters).entrySet()) {
+            out.append("counter ").append(entry.getKey()).append(' ').append(entry.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            out.append("gauge ").append(entry.getKey()).append(' ').append(entry.getValue().getAsLong()).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram timer = entry.getValue();
+            out.append(String.format(Locale.ROOT,
+                    "timer %s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                    entry.getKey(), timer.getCount(), timer.getMean() / 1_000,
+                    timer.getPercentile(50) / 1_000.0, timer.getPercentile(99) / 1_000.0,
+                    timer.getPercentile(99.9) / 1_000.0, timer.getMax() / 1_000.0));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String getReport() {
+        return dump();
+    }
+
+    // Обнуляет таймеры и счётчики, датчики показывают текущее состояние и не сбрасываются
+    @Override
+    public void reset() {
+        for (LatencyHistogram timer : timers.values()) {
+            timer.reset();
+        }
+        for (AdderCounter counter : counters.values()) {
+            counter.value.reset();
+        }
+    }
+
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("typesoftasks:type=Metrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики в JMX: " + name, e);
+        }
+    }
+}
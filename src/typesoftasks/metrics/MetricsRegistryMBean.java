@@ -0,0 +1,8 @@
+package typesoftasks.metrics;
+
+public interface MetricsRegistryMBean {
+
+    String getReport();
+
+    void reset();
+}
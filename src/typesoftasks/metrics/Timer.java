@@ -0,0 +1,21 @@
+package typesoftasks.metrics;
+
+// Замер длительности: start() перед операцией, stop(start) после.
+// NOOP не читает часы, поэтому отключённые метрики стоят один пустой вызов.
+public interface Timer {
+
+    Timer NOOP = new Timer() {
+        @Override
+        public long start() {
+            return 0;
+        }
+
+        @Override
+        public void stop(long start) {
+        }
+    };
+
+    long start();
+
+    void stop(long start);
+}
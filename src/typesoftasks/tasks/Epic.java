@@ -2,68 +2,86 @@ package typesoftasks.tasks;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
+// Эпик — такой же неизменяемый снимок, как задача. Статус, время и список подзадач выводит менеджер
+// из подзадач и при каждом их изменении сохраняет новый снимок эпика.
+// Копии withDescription и withVersion сохраняют выведенное, а withStatus, withDuration, withStartTime
+// и withSchedule бросают UnsupportedOperationException: эти поля у эпика задаются только подзадачами.
 public class Epic extends Task {
 
-    private final List<Integer> subtaskIds = new ArrayList<>();
-    private LocalDateTime endTime;
+    private static final int[] NO_COUNTS = new int[TaskStatus.values().length];
 
-    public Epic(int id, String title, String description) {
-        super(id, title, description, TaskType.EPIC);
+    private final List<Integer> subtaskIds;
+    private final LocalDateTime endTime;
+    private final int[] statusCounts;
+
+    public Epic(int id, String title, CharSequence description) {
+        this(id, title, description, UNVERSIONED);
     }
 
-    public List<Integer> getSubtasks() {
-        return Collections.unmodifiableList(subtaskIds);
+    public Epic(int id, String title, CharSequence description, long version) {
+        this(id, title, description, version, TaskStatus.NEW, null, null, null, List.of(), NO_COUNTS);
+    }
+
+    // Снимок, собранный менеджером по подзадачам; subtaskIds должен быть неизменяемым
+    public Epic(int id, String title, CharSequence description, long version, TaskStatus status,
+                Duration duration, LocalDateTime startTime, LocalDateTime endTime, List<Integer> subtaskIds,
+                int[] statusCounts) {
+        super(id, title, description, TaskType.EPIC, status, duration, startTime, version);
+        this.endTime = endTime;
+        this.subtaskIds = subtaskIds;
+        this.statusCounts = statusCounts.clone();
+    }
+
+    @Override
+    public Epic withStatus(TaskStatus status) {
+        throw derived("статус");
+    }
+
+    @Override
+    public Epic withDuration(Duration duration) {
+        throw derived("продолжительность");
+    }
+
+    @Override
+    public Epic withStartTime(LocalDateTime startTime) {
+        throw derived("время начала");
+    }
+
+    @Override
+    public Epic withSchedule(LocalDateTime startTime, Duration duration) {
+        throw derived("время начала и продолжительность");
+    }
+
+    @Override
+    public Epic withVersion(long version) {
+        return (Epic) super.withVersion(version);
+    }
+
+    @Override
+    public Epic withDescription(CharSequence description) {
+        return (Epic) super.withDescription(description);
     }
 
-    public void addSubtask(int subtaskId) {
-        if (subtaskId == getId()) {
-            throw new IllegalArgumentException("Epic cannot be its own subtask");
-        }
-        subtaskIds.add(subtaskId);
+    // Сюда приходят только withDescription и withVersion: статус и время копия берёт из этого снимка
+    @Override
+    protected Epic copy(CharSequence description, TaskStatus status, Duration duration, LocalDateTime startTime,
+                        long version) {
+        return new Epic(getId(), getTitle(), description, version, getStatus(), getDuration(), getStartTime(),
+                endTime, subtaskIds, statusCounts);
     }
 
-    public void removeSubtask(int subtaskId) {
-        subtaskIds.remove(Integer.valueOf(subtaskId));
+    private static UnsupportedOperationException derived(String field) {
+        return new UnsupportedOperationException("У эпика нельзя задать " + field + ": поле выводится из подзадач");
     }
 
-    public void clearSubtasks() {
-        subtaskIds.clear();
+    public List<Integer> getSubtasks() {
+        return subtaskIds;
     }
 
-    public void recalculateTimeFields(List<Subtask> allSubtasks) {
-        Duration totalDuration = Duration.ZERO;
-        LocalDateTime earliestStart = null;
-        LocalDateTime latestEnd = null;
-
-        for (Integer subId : subtaskIds) {
-            for (Subtask subtask : allSubtasks) {
-                if (subtask.getId() == subId) {
-                    Duration dur = subtask.getDuration();
-                    LocalDateTime start = subtask.getStartTime();
-                    LocalDateTime end = subtask.getEndTime();
-
-                    if (dur != null) {
-                        totalDuration = totalDuration.plus(dur);
-                    }
-
-                    if (start != null && (earliestStart == null || start.isBefore(earliestStart))) {
-                        earliestStart = start;
-                    }
-
-                    if (end != null && (latestEnd == null || end.isAfter(latestEnd))) {
-                        latestEnd = end;
-                    }
-                }
-            }
-        }
-
-        setDuration(totalDuration);
-        setStartTime(earliestStart);
-        this.endTime = latestEnd;
+    public int getStatusCount(TaskStatus status) {
+        return statusCounts[status.ordinal()];
     }
 
     @Override
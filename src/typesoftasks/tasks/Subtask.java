@@ -1,12 +1,24 @@
 package typesoftasks.tasks;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Subtask extends Task {
     private final int epicId;
 
     public Subtask(int id, String title, String description, int epicId) {
-        super(id, title, description, TaskType.SUBTASK);
+        this(id, title, description, epicId, TaskStatus.NEW, null, null);
+    }
+
+    public Subtask(int id, String title, String description, int epicId, TaskStatus status,
+                   Duration duration, LocalDateTime startTime) {
+        this(id, title, description, epicId, status, duration, startTime, UNVERSIONED);
+    }
+
+    public Subtask(int id, String title, CharSequence description, int epicId, TaskStatus status,
+                   Duration duration, LocalDateTime startTime, long version) {
+        super(id, title, description, TaskType.SUBTASK, status, duration, startTime, version);
         this.epicId = epicId;
     }
 
@@ -14,6 +26,42 @@ public class Subtask extends Task {
         return epicId;
     }
 
+    @Override
+    public Subtask withStatus(TaskStatus status) {
+        return (Subtask) super.withStatus(status);
+    }
+
+    @Override
+    public Subtask withDuration(Duration duration) {
+        return (Subtask) super.withDuration(duration);
+    }
+
+    @Override
+    public Subtask withStartTime(LocalDateTime startTime) {
+        return (Subtask) super.withStartTime(startTime);
+    }
+
+    @Override
+    public Subtask withSchedule(LocalDateTime startTime, Duration duration) {
+        return (Subtask) super.withSchedule(startTime, duration);
+    }
+
+    @Override
+    public Subtask withVersion(long version) {
+        return (Subtask) super.withVersion(version);
+    }
+
+    @Override
+    public Subtask withDescription(CharSequence description) {
+        return (Subtask) super.withDescription(description);
+    }
+
+    @Override
+    protected Subtask copy(CharSequence description, TaskStatus status, Duration duration, LocalDateTime startTime,
+                           long version) {
+        return new Subtask(getId(), getTitle(), description, epicId, status, duration, startTime, version);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
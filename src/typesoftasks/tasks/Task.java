@@ -4,41 +4,95 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+// Задача — неизменяемый снимок: изменения делаются методами with*, которые возвращают новую версию.
+// Поэтому менеджер отдаёт и хранит в расписании и истории одни и те же экземпляры без копирования.
+// Версию выставляет менеджер при каждом сохранении; копии with* несут версию, с которой их сделали,
+// и обновление такой копии отклоняется, если задачу успели сохранить заново.
+// Описание — строка или ссылка на текст, вынесенный из памяти (например, в файл); такой текст
+// читается при каждом getDescription(), а копии with* передают ссылку дальше, не читая его.
 public class Task {
+    // Версия черновика: обновление с ней записывается без проверки
+    public static final long UNVERSIONED = 0;
+    public static final long FIRST_VERSION = 1;
+
     private final int id;
     private final String title;
-    private final String description;
-    private TaskStatus status;
+    private final CharSequence description;
+    private final TaskStatus status;
     private final TaskType type;
-    private Duration duration;
-    private LocalDateTime startTime;
+    private final Duration duration;
+    private final LocalDateTime startTime;
+    private final long version;
 
-    public Duration getDuration() {
-        return duration;
+    public Task(int id, String title, CharSequence description, TaskType type) {
+        this(id, title, description, type, TaskStatus.NEW, null, null, UNVERSIONED);
     }
 
-    public void setDuration(Duration duration) {
-        this.duration = duration;
+    public Task(int id, String title, String description) {
+        this(id, title, description, TaskType.TASK); // по умолчанию TASK
     }
 
-    public LocalDateTime getStartTime() {
-        return startTime;
+    public Task(int id, String title, String description, TaskStatus status,
+                Duration duration, LocalDateTime startTime) {
+        this(id, title, description, status, duration, startTime, UNVERSIONED);
     }
 
-    public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+    public Task(int id, String title, CharSequence description, TaskStatus status,
+                Duration duration, LocalDateTime startTime, long version) {
+        this(id, title, description, TaskType.TASK, status, duration, startTime, version);
     }
 
-    public Task(int id, String title, String description, TaskType type) {
+    protected Task(int id, String title, CharSequence description, TaskType type, TaskStatus status,
+                   Duration duration, LocalDateTime startTime, long version) {
         this.id = id;
         this.title = title;
         this.description = description;
-        this.status = TaskStatus.NEW;
         this.type = type;
+        this.status = status;
+        this.duration = duration;
+        this.startTime = startTime;
+        this.version = version;
     }
 
-    public Task(int id, String title, String description) {
-        this(id, title, description, TaskType.TASK); // по умолчанию TASK
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Task withStatus(TaskStatus status) {
+        return copy(description, status, getDuration(), getStartTime(), getVersion());
+    }
+
+    public Task withDuration(Duration duration) {
+        return copy(description, getStatus(), duration, getStartTime(), getVersion());
+    }
+
+    public Task withStartTime(LocalDateTime startTime) {
+        return copy(description, getStatus(), getDuration(), startTime, getVersion());
+    }
+
+    public Task withSchedule(LocalDateTime startTime, Duration duration) {
+        return copy(description, getStatus(), duration, startTime, getVersion());
+    }
+
+    public Task withVersion(long version) {
+        return copy(description, getStatus(), getDuration(), getStartTime(), version);
+    }
+
+    public Task withDescription(CharSequence description) {
+        return copy(description, getStatus(), getDuration(), getStartTime(), getVersion());
+    }
+
+    protected Task copy(CharSequence description, TaskStatus status, Duration duration, LocalDateTime startTime,
+                        long version) {
+        return new Task(id, title, description, type, status, duration, startTime, version);
     }
 
     public int getId() {
@@ -50,6 +104,11 @@ public class Task {
     }
 
     public String getDescription() {
+        return description != null ? description.toString() : null;
+    }
+
+    // Описание как оно хранится, без чтения вынесенного текста
+    public CharSequence getDescriptionText() {
         return description;
     }
 
@@ -57,43 +116,18 @@ public class Task {
         return status;
     }
 
-    public void setStatus(TaskStatus status) {
-        this.status = status;
-    }
-
     public TaskType getType() {
         return type;
     }
 
     public LocalDateTime getEndTime() {
-        if (startTime != null && duration != null) {
-            return startTime.plus(duration);
+        if (getStartTime() != null && getDuration() != null) {
+            return getStartTime().plus(getDuration());
         } else {
             return null;
         }
     }
 
-    public static Task fromString(String line) {
-        String[] fields = line.split(",");
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String title = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-        long durationMinutes = Long.parseLong(fields[5]);
-        String startTimeStr = fields[6];
-
-        Task task = new Task(id, title, description, type);
-        task.setStatus(status);
-        task.setDuration(Duration.ofMinutes(durationMinutes));
-
-        if (!startTimeStr.isEmpty()) {
-            task.setStartTime(LocalDateTime.parse(startTimeStr));
-        }
-
-        return task;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -112,10 +146,10 @@ public class Task {
         return id + "," +
                 type + "," +
                 title + "," +
-                status + "," +
+                getStatus() + "," +
                 description + "," +
-                (duration != null ? duration.toMinutes() : 0) + "," +
-                (startTime != null ? startTime : "") + "," +
+                (getDuration() != null ? getDuration().toMinutes() : 0) + "," +
+                (getStartTime() != null ? getStartTime() : "") + "," +
                 (getEndTime() != null ? getEndTime() : "");
     }
 
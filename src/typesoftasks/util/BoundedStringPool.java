@@ -0,0 +1,128 @@
+package typesoftasks.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Пул фиксированного размера с прямым отображением: строка попадает в ячейку по хешу и вытесняет прежнюю.
+// Размер памяти пула не растёт, а строки шаблонов, которые встречаются постоянно, в ячейках и задерживаются.
+// Блокировок нет: при гонке ячейку перезапишет один из потоков, и дубликат просто не будет найден,
+// а строка публикуется безопасно благодаря final-полям String.
+public final class BoundedStringPool implements StringPool {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    // Заголовок String и заголовок массива value при сжатых указателях
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    private final String[] slots;
+    private final int mask;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public BoundedStringPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BoundedStringPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер пула строк должен быть положительным");
+        }
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        size = size < capacity ? size << 1 : size;
+        slots = new String[size];
+        mask = size - 1;
+    }
+
+    @Override
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        lookups.increment();
+        int hash = value.hashCode();
+        int slot = slot(hash);
+        String cached = slots[slot];
+        if (cached == value) {
+            // Строка уже каноническая, памяти это не экономит
+            hits.increment();
+            return cached;
+        }
+        if (cached != null && cached.hashCode() == hash && cached.equals(value)) {
+            hit(cached);
+            return cached;
+        }
+        slots[slot] = value;
+        return value;
+    }
+
+    @Override
+    public String intern(char[] chars, int offset, int length) {
+        lookups.increment();
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = slot(hash);
+        String cached = slots[slot];
+        if (cached != null && cached.length() == length && cached.hashCode() == hash
+                && sameChars(cached, chars, offset)) {
+            hit(cached);
+            return cached;
+        }
+        String value = new String(chars, offset, length);
+        slots[slot] = value;
+        return value;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean sameChars(String value, char[] chars, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void hit(String value) {
+        hits.increment();
+        bytesSaved.add(footprint(value));
+    }
+
+    // Приблизительный размер строки в куче: латиница хранится по байту на символ, остальное — по два
+    static long footprint(String value) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return (STRING_OVERHEAD + (long) value.length() * bytesPerChar + 7) & ~7L;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long total = getLookups();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    // Сколько занимали бы в куче дубликаты, заменённые строками из пула
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+}
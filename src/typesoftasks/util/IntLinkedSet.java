@@ -0,0 +1,283 @@
+package typesoftasks.util;
+
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+// Множество int с порядком добавления: значения лежат в узлах двусвязного списка на массивах,
+// а хеш-таблица с открытой адресацией хранит номера узлов (0 — пустая ячейка, иначе номер + 1).
+// Таблица всегда минимум вдвое больше массива узлов, поэтому заполнена не более чем наполовину.
+// Удалённые узлы уходят в список свободных и переиспользуются.
+public class IntLinkedSet {
+
+    private static final int NONE = -1;
+
+    private int[] values;
+    private int[] prev;
+    private int[] next;
+    private int[] table;
+    private int mask;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int modCount;
+
+    private final List<Integer> listView = new ListView();
+
+    public IntLinkedSet() {
+        this(8);
+    }
+
+    public IntLinkedSet(int capacity) {
+        capacity = Math.max(capacity, 4);
+        values = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        allocateTable(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return find(value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (find(value) >= 0) {
+            return false;
+        }
+        if (free == NONE && used == values.length) {
+            grow();
+        }
+        int node = allocateNode();
+        values[node] = value;
+        prev[node] = tail;
+        next[node] = NONE;
+        if (tail == NONE) {
+            head = node;
+        } else {
+            next[tail] = node;
+        }
+        tail = node;
+        insert(node);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        int node = table[slot] - 1;
+        shiftBack(slot);
+        if (prev[node] == NONE) {
+            head = next[node];
+        } else {
+            next[prev[node]] = next[node];
+        }
+        if (next[node] == NONE) {
+            tail = prev[node];
+        } else {
+            prev[next[node]] = prev[node];
+        }
+        next[node] = free;
+        free = node;
+        size--;
+        modCount++;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int node = head; node != NONE; node = next[node]) {
+            result[i++] = values[node];
+        }
+        return result;
+    }
+
+    // Живое упорядоченное представление только для чтения, без копирования
+    public List<Integer> asList() {
+        return listView;
+    }
+
+    private int find(int value) {
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (values[table[slot] - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                break;
+            }
+            int home = slot(values[table[slot] - 1]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private int allocateNode() {
+        if (free != NONE) {
+            int node = free;
+            free = next[node];
+            return node;
+        }
+        return used++;
+    }
+
+    private void grow() {
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        allocateTable(capacity);
+        for (int node = head; node != NONE; node = next[node]) {
+            insert(node);
+        }
+    }
+
+    private void insert(int node) {
+        int slot = slot(values[node]);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = node + 1;
+    }
+
+    private void allocateTable(int capacity) {
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        mask = table.length - 1;
+    }
+
+    private int slot(int value) {
+        int h = value * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private final class ListView extends AbstractSequentialList<Integer> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return value instanceof Integer && IntLinkedSet.this.contains((Integer) value);
+        }
+
+        @Override
+        public ListIterator<Integer> listIterator(int index) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size);
+            }
+            NodeIterator iterator = new NodeIterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator;
+        }
+    }
+
+    private final class NodeIterator implements ListIterator<Integer> {
+        private final int expectedModCount = modCount;
+        private int cursor = head;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return cursor != NONE;
+        }
+
+        @Override
+        public Integer next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor == NONE) {
+                throw new NoSuchElementException();
+            }
+            int value = values[cursor];
+            cursor = next[cursor];
+            index++;
+            return value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public Integer previous() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (index == 0) {
+                throw new NoSuchElementException();
+            }
+            cursor = cursor == NONE ? tail : prev[cursor];
+            index--;
+            return values[cursor];
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(Integer value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(Integer value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package typesoftasks.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Карта int -> V без упаковки ключей, устроена как IntLinkedSet: записи лежат в массивах keys/values
+// в порядке добавления, а хеш-таблица с открытой адресацией хранит номера записей (0 — пустая ячейка,
+// иначе номер + 1). Хеш мультипликативный, поэтому последовательные id не собираются в один кластер,
+// а удаление сдвигает кластер назад без «надгробий» — поиск удалённого ключа не проходит лишних ячеек.
+// Удалённая запись остаётся дырой (null в values) до ближайшего роста, где массивы уплотняются.
+// Значения обходятся в порядке добавления: для последовательных id это порядок id.
+// null-значения не поддерживаются.
+public class IntObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int used;
+    private int size;
+    private int[] table;
+    private int mask;
+    private int modCount;
+
+    private final Collection<V> valuesView = new AbstractCollection<>() {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        allocate(Math.max(expectedSize, MIN_CAPACITY));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[table[slot] - 1] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            int entry = table[slot] - 1;
+            V previous = (V) values[entry];
+            values[entry] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            // Если массивы заняты в основном дырами, достаточно уплотнить их в том же размере
+            resize(used - size >= size ? keys.length : keys.length * 2);
+        }
+        int entry = used++;
+        keys[entry] = key;
+        values[entry] = value;
+        insert(entry);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        int entry = table[slot] - 1;
+        shiftBack(slot);
+        V previous = (V) values[entry];
+        values[entry] = null;
+        size--;
+        if (size == 0) {
+            used = 0;
+        }
+        modCount++;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, 0, used, null);
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // Живое представление значений; удаление через итератор не поддерживается
+    public Collection<V> values() {
+        return valuesView;
+    }
+
+    private int find(int key) {
+        int slot = slot(key);
+        while (table[slot] != 0) {
+            if (keys[table[slot] - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int entry) {
+        int slot = slot(keys[entry]);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                break;
+            }
+            int home = slot(keys[table[slot] - 1]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldValues[i] != null) {
+                keys[used] = oldKeys[i];
+                values[used] = oldValues[i];
+                insert(used);
+                used++;
+            }
+        }
+    }
+
+    // Таблица минимум вдвое больше массивов записей, поэтому заполнена не более чем наполовину
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        table = new int[Integer.highestOneBit(Math.min(capacity, 1 << 29) * 2 - 1) << 1];
+        mask = table.length - 1;
+        used = 0;
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < used && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[next];
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package typesoftasks.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+// Множество int в порядке добавления, которое отдаёт неизменяемые снимки без копирования.
+// Значения только дописываются в конец массива, а удаление отмечает в removedIn поколение, с которого
+// значения нет. Снимок запоминает массивы, их занятую длину и поколение и видит значение, если оно
+// добавлено до снимка и удалено позже него (или не удалено вовсе). Когда удалённых становится не меньше,
+// чем живых, массивы переписываются без них, а выданные снимки остаются на прежних массивах.
+// Менять множество может один поток за раз; снимки после безопасной публикации читаются из любых потоков:
+// запись в removedIn после снимка меняет ALIVE на поколение новее снимка, и снимок видит значение в обоих случаях.
+public final class IntSnapshotSet {
+
+    private static final int ALIVE = Integer.MAX_VALUE;
+
+    private int[] values;
+    private int[] removedIn;
+    private int length;
+    private int size;
+    private int generation;
+    private boolean shared;
+
+    // Номер ячейки значения + 1 по открытой адресации, только для живых значений
+    private int[] table;
+    private int mask;
+
+    public IntSnapshotSet() {
+        this(4);
+    }
+
+    public IntSnapshotSet(int capacity) {
+        allocate(Math.max(capacity, 4));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int value) {
+        return find(value) >= 0;
+    }
+
+    public boolean add(int value) {
+        if (find(value) >= 0) {
+            return false;
+        }
+        if (length == values.length) {
+            grow();
+        }
+        values[length] = value;
+        removedIn[length] = ALIVE;
+        insert(length);
+        length++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = find(value);
+        if (slot < 0) {
+            return false;
+        }
+        int cell = table[slot] - 1;
+        shiftBack(slot);
+        if (shared) {
+            // Снимок уже видит текущее поколение, удаление после него относится к следующему
+            generation++;
+            shared = false;
+        }
+        removedIn[cell] = generation;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(4);
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int next = 0;
+        for (int i = 0; i < length; i++) {
+            if (removedIn[i] == ALIVE) {
+                result[next++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    // Неизменяемый список текущих значений за O(1)
+    public List<Integer> snapshot() {
+        if (size == 0) {
+            return List.of();
+        }
+        shared = true;
+        return new Snapshot(values, removedIn, length, size, generation);
+    }
+
+    private void grow() {
+        if (length - size >= size || generation == ALIVE - 1) {
+            compact(Math.max(4, size * 2));
+            return;
+        }
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        removedIn = Arrays.copyOf(removedIn, capacity);
+        rebuildTable();
+    }
+
+    private void compact(int capacity) {
+        int[] oldValues = values;
+        int[] oldRemoved = removedIn;
+        int oldLength = length;
+        allocate(capacity);
+        for (int i = 0; i < oldLength; i++) {
+            if (oldRemoved[i] == ALIVE) {
+                values[length] = oldValues[i];
+                removedIn[length] = ALIVE;
+                insert(length);
+                length++;
+            }
+        }
+        size = length;
+    }
+
+    private void allocate(int capacity) {
+        values = new int[capacity];
+        removedIn = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        mask = table.length - 1;
+        length = 0;
+        size = 0;
+        generation = 0;
+        shared = false;
+    }
+
+    private void rebuildTable() {
+        table = new int[Integer.highestOneBit(values.length * 2 - 1) << 1];
+        mask = table.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (removedIn[i] == ALIVE) {
+                insert(i);
+            }
+        }
+    }
+
+    private int find(int value) {
+        int slot = slot(value);
+        while (table[slot] != 0) {
+            if (values[table[slot] - 1] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int cell) {
+        int slot = slot(values[cell]);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = cell + 1;
+    }
+
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                break;
+            }
+            int home = slot(values[table[slot] - 1]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private int slot(int value) {
+        int h = value * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Snapshot extends AbstractList<Integer> implements RandomAccess {
+        private final int[] values;
+        private final int[] removedIn;
+        private final int length;
+        private final int size;
+        private final int generation;
+
+        Snapshot(int[] values, int[] removedIn, int length, int size, int generation) {
+            this.values = values;
+            this.removedIn = removedIn;
+            this.length = length;
+            this.size = size;
+            this.generation = generation;
+        }
+
+        private boolean visible(int cell) {
+            return removedIn[cell] > generation;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        // Без удалённых ячеек — прямой доступ, иначе проход по префиксу
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Индекс " + index + " вне списка размера " + size);
+            }
+            if (size == length) {
+                return values[index];
+            }
+            int seen = 0;
+            for (int i = 0; i < length; i++) {
+                if (visible(i) && seen++ == index) {
+                    return values[i];
+                }
+            }
+            throw new IllegalStateException("Снимок повреждён");
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int cell = advance(0);
+
+                private int advance(int from) {
+                    while (from < length && !visible(from)) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return cell < length;
+                }
+
+                @Override
+                public Integer next() {
+                    if (cell >= length) {
+                        throw new NoSuchElementException();
+                    }
+                    int value = values[cell];
+                    cell = advance(cell + 1);
+                    return value;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package typesoftasks.util;
+
+// Канонизация повторяющихся строк: вместо равной строки возвращается уже сохранённый экземпляр.
+// Пул — кэш, а не множество: он может и не узнать строку, поэтому сравнивать результаты по ссылке нельзя.
+public interface StringPool {
+
+    StringPool NOOP = new StringPool() {
+        @Override
+        public String intern(String value) {
+            return value;
+        }
+
+        @Override
+        public String intern(char[] chars, int offset, int length) {
+            return new String(chars, offset, length);
+        }
+    };
+
+    String intern(String value);
+
+    // Для разбора без лишних строк: при попадании новая строка не создаётся
+    String intern(char[] chars, int offset, int length);
+
+    // Вынесенный текст (не String) не читается и возвращается как есть
+    default CharSequence intern(CharSequence value) {
+        return value instanceof String ? intern((String) value) : value;
+    }
+}
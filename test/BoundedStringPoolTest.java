@@ -0,0 +1,65 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.FileBackedTaskManager;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.SnapshotFormat;
+import typesoftasks.metrics.Metrics;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.util.BoundedStringPool;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedStringPoolTest {
+
+    @Test
+    void shouldReturnCanonicalInstanceAndCountSavings() {
+        BoundedStringPool pool = new BoundedStringPool(64);
+        String first = pool.intern(new String("Покрасить стены"));
+        String second = pool.intern(new String("Покрасить стены"));
+        char[] chars = "xxПокрасить стеныxx".toCharArray();
+
+        assertSame(first, second, "Равная строка заменяется сохранённой.");
+        assertSame(first, pool.intern(chars, 2, first.length()), "Поиск по массиву символов находит ту же строку.");
+        assertEquals("Покрасить", pool.intern(chars, 2, 9), "Другая подстрока — другая строка.");
+        assertNull(pool.intern((String) null));
+        assertEquals(4, pool.getLookups());
+        assertEquals(2, pool.getHits());
+        assertEquals(0.5, pool.getHitRate());
+        assertEquals(2 * (24 + 16 + 2 * 15 + 2), pool.getBytesSaved(), "Кириллица занимает по два байта на символ.");
+        assertEquals(64, pool.getCapacity());
+    }
+
+    @Test
+    void managerAndLoaderShouldShareTemplateText() throws Exception {
+        File file = File.createTempFile("test-string-pool", ".csv");
+        file.deleteOnExit();
+        BoundedStringPool pool = new BoundedStringPool();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.setStringPool(pool);
+        for (int i = 0; i < 3; i++) {
+            Epic epic = manager.createEpic("Ремонт " + i, "Квартира");
+            for (String step : List.of("Покрасить", "Убрать")) {
+                manager.createSubtask(new String(step), new String("Шаг из шаблона"), epic.getId());
+            }
+        }
+        List<Subtask> created = List.copyOf(manager.getAllSubtasks());
+        assertSame(created.get(0).getDescription(), created.get(5).getDescription(),
+                "Подзадачи из шаблона делят одну строку описания.");
+        manager.close();
+
+        BoundedStringPool loaderPool = new BoundedStringPool();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT,
+                SnapshotFormat.CSV, Metrics.NOOP, loaderPool);
+        List<Subtask> subtasks = List.copyOf(loaded.getAllSubtasks());
+        assertSame(subtasks.get(0).getTitle(), subtasks.get(2).getTitle(), "Загрузка тоже схлопывает повторы.");
+        assertSame(loaderPool, loaded.getStringPool());
+        assertTrue(loaderPool.getHits() >= 10, "Повторяются описания эпиков и заголовки с описаниями подзадач.");
+        loaded.close();
+    }
+}
@@ -0,0 +1,313 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.ConcurrentTaskManager;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.managers.Managers;
+import typesoftasks.managers.StaleVersionException;
+import typesoftasks.managers.TaskEvent;
+import typesoftasks.managers.TaskManager;
+import typesoftasks.metrics.MetricsRegistry;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+
+    private static final int THREADS = 8;
+
+    private static <T> List<T> runConcurrently(Callable<T> job) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<T>> jobs = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                jobs.add(job);
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(jobs)) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Потоки не завершились вовремя.");
+        }
+    }
+
+    @Test
+    void concurrentCreationShouldNotLoseTasksOrDuplicateIds() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        Epic shared = manager.createEpic("Общий эпик", "Описание");
+        int perThread = 2_000;
+
+        List<List<Integer>> created = runConcurrently(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                ids.add(manager.createTask("Задача", "Описание").getId());
+                ids.add(manager.createSubtask("Подзадача", "Описание", shared.getId()).getId());
+            }
+            return ids;
+        });
+
+        Set<Integer> unique = new HashSet<>();
+        for (List<Integer> ids : created) {
+            unique.addAll(ids);
+        }
+        assertEquals(THREADS * perThread * 2, unique.size(), "Идентификаторы не должны повторяться.");
+        assertEquals(THREADS * perThread * 2 + 1, manager.getAllTasks().size(), "Задачи не должны теряться.");
+        assertEquals(THREADS * perThread, manager.getEpic(shared.getId()).getSubtasks().size(), "Все подзадачи должны попасть в эпик.");
+        assertEquals(THREADS * perThread, manager.getSubtasksByEpic(shared.getId()).size(),
+                "Эпик должен видеть все свои подзадачи.");
+    }
+
+    @Test
+    void concurrentSubtaskUpdatesShouldKeepEpicStatusConsistent() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            subtasks.add(manager.createSubtask("Подзадача " + i, "Описание", epic.getId()));
+        }
+
+        runConcurrently(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (Subtask subtask : subtasks) {
+                    Subtask copy = new Subtask(subtask.getId(), subtask.getTitle(), subtask.getDescription(),
+                            subtask.getEpicId());
+                    copy = copy.withStatus(round % 2 == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.DONE);
+                    manager.updateSubtask(copy);
+                }
+            }
+            return null;
+        });
+
+        assertEquals(TaskStatus.DONE, manager.getEpic(epic.getId()).getStatus(),
+                "После последнего раунда все подзадачи выполнены.");
+        assertEquals(256, manager.getEpic(epic.getId()).getStatusCount(TaskStatus.DONE), "Счётчики статусов эпика разошлись.");
+    }
+
+    @Test
+    void concurrentSchedulingShouldNeverAdmitOverlaps() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        runConcurrently(() -> {
+            for (int slot = 0; slot < 200; slot++) {
+                Task task = manager.createTask("Задача", "Описание")
+                        .withSchedule(base.plusMinutes(slot * 30L), Duration.ofMinutes(45));
+                try {
+                    manager.updateTask(task);
+                } catch (IllegalArgumentException ignored) {
+                    // Слот уже занят другим потоком
+                }
+            }
+            return null;
+        });
+
+        List<Task> scheduled = manager.getPrioritizedTasks();
+        assertFalse(scheduled.isEmpty(), "Хотя бы одна задача должна попасть в расписание.");
+        for (int i = 1; i < scheduled.size(); i++) {
+            assertFalse(scheduled.get(i).getStartTime().isBefore(scheduled.get(i - 1).getEndTime()),
+                    "Задачи в расписании не должны пересекаться.");
+        }
+    }
+
+    @Test
+    void concurrentEpicDeletionShouldNotLeaveOrphans() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            epics.add(manager.createEpic("Эпик " + i, "Описание"));
+        }
+
+        runConcurrently(() -> {
+            for (Epic epic : epics) {
+                manager.createSubtask("Подзадача", "Описание", epic.getId());
+                manager.deleteEpicById(epic.getId());
+            }
+            return null;
+        });
+
+        assertTrue(manager.getAllEpics().isEmpty(), "Все эпики должны быть удалены.");
+        assertTrue(manager.getAllSubtasks().isEmpty(), "Подзадачи удалённых эпиков не должны оставаться.");
+    }
+
+    @Test
+    void concurrentEpicUpdatesFromSameVersionShouldAdmitOnlyOne() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        Epic epic = manager.createEpic("Эпик", "Описание");
+
+        List<Boolean> results = runConcurrently(() -> {
+            try {
+                manager.updateEpic(epic.withDescription(Thread.currentThread().getName()));
+                return true;
+            } catch (StaleVersionException e) {
+                return false;
+            }
+        });
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count(),
+                "По одной версии эпик может изменить только один писатель.");
+        assertEquals(Task.FIRST_VERSION + 1, manager.getEpic(epic.getId()).getVersion());
+    }
+
+    @Test
+    void competingBatchesShouldApplyWhollyOrNotAtAll() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        int batchSize = 10;
+
+        List<Integer> applied = runConcurrently(() -> {
+            int batches = 0;
+            for (int round = 0; round < 50; round++) {
+                List<Task> drafts = new ArrayList<>();
+                for (int i = 0; i < batchSize; i++) {
+                    Task draft = new Task(0, "Задача", "Описание")
+                            .withSchedule(base.plusHours(round * batchSize + i), Duration.ofMinutes(90));
+                    drafts.add(i % 2 == 0 ? draft : new Task(0, "Без времени", "Описание"));
+                }
+                try {
+                    manager.createAll(drafts);
+                    batches++;
+                } catch (IllegalArgumentException ignored) {
+                    // Слоты раунда уже заняты пакетом другого потока
+                }
+            }
+            return batches;
+        });
+
+        int total = applied.stream().mapToInt(Integer::intValue).sum();
+        assertEquals(50, total, "Каждый раунд должен достаться ровно одному пакету.");
+        assertEquals(total * batchSize, manager.getAllTasks().size(), "Пакеты не должны применяться частично.");
+    }
+
+    @Test
+    void readsRacingWithDeletesShouldNotResurrectHistory() throws Exception {
+        ConcurrentTaskManager manager = Managers.getConcurrent();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            ids.add(manager.createTask("Задача", "Описание").getId());
+        }
+        AtomicInteger workers = new AtomicInteger();
+
+        runConcurrently(() -> {
+            boolean deleter = workers.getAndIncrement() % 2 == 0;
+            for (int id : ids) {
+                if (deleter) {
+                    manager.deleteTaskById(id);
+                } else {
+                    manager.getTask(id);
+                }
+            }
+            return null;
+        });
+
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertEquals(List.of(), manager.getHistory(), "Удалённые задачи не должны возвращаться в историю.");
+    }
+
+    @Test
+    void eventsAndMetricsShouldMatchInMemoryManager() {
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        MetricsRegistry expectedMetrics = new MetricsRegistry();
+        expected.setMetrics(expectedMetrics);
+        expected.setEventDelivery(Runnable::run, 64);
+        List<String> expectedEvents = new ArrayList<>();
+        expected.events().subscribe(collector(expectedEvents));
+
+        ConcurrentTaskManager actual = Managers.getConcurrent();
+        MetricsRegistry actualMetrics = new MetricsRegistry();
+        actual.setMetrics(actualMetrics);
+        actual.setEventDelivery(Runnable::run, 64);
+        List<String> actualEvents = new ArrayList<>();
+        actual.events().subscribe(collector(actualEvents));
+
+        script(expected);
+        script(actual);
+
+        assertEquals(expectedEvents, actualEvents, "События должны совпадать с InMemoryTaskManager.");
+        for (String timer : List.of("hasIntersection", "updateEpicStatus")) {
+            assertEquals(expectedMetrics.timer(timer).getCount(), actualMetrics.timer(timer).getCount(), timer);
+        }
+        for (String gauge : List.of("tasks", "epics", "subtasks", "history")) {
+            assertEquals(expectedMetrics.getGauge(gauge), actualMetrics.getGauge(gauge), gauge);
+        }
+        assertEquals(1, actualMetrics.counter("overlapsRejected").get());
+    }
+
+    // Статусы и поиск отвечают из тех же индексов, что и у InMemoryTaskManager, включая порядок поиска
+    @Test
+    void statusAndSearchShouldMatchInMemoryManager() {
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        ConcurrentTaskManager actual = Managers.getConcurrent();
+        script(expected);
+        script(actual);
+
+        for (TaskStatus status : TaskStatus.values()) {
+            assertEquals(expected.countByStatus(status), actual.countByStatus(status), status.name());
+            assertEquals(new HashSet<>(expected.getByStatus(status)), new HashSet<>(actual.getByStatus(status)),
+                    status.name());
+        }
+        for (String query : List.of("отчёт", "квартал", "нет такого")) {
+            assertEquals(expected.search(query, 10), actual.search(query, 10), query);
+        }
+    }
+
+    private static void script(TaskManager manager) {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 0);
+        Task task = manager.createTask("Квартальный отчёт", "Собрать цифры");
+        task = manager.updateTask(task.withSchedule(start, Duration.ofMinutes(60)));
+        Epic epic = manager.createEpic("Переезд", "Отчёт для бухгалтерии");
+        Subtask first = manager.createSubtask("Упаковать", "Коробки", epic.getId());
+        Subtask second = manager.createSubtask("Отчёт о переезде", "За квартал", epic.getId());
+        manager.getSubtaskById(first.getId());
+        manager.getTask(task.getId());
+        manager.updateSubtask(first.withStatus(TaskStatus.DONE));
+        Subtask overlapping = second.withSchedule(start.plusMinutes(30), Duration.ofMinutes(60));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateSubtask(overlapping));
+        manager.updateSubtask(second.withStatus(TaskStatus.IN_PROGRESS));
+        manager.createAll(List.of(new Task(0, "Отчёт", "Черновик"), new Epic(1, "Ремонт", "Кухня"),
+                new Subtask(0, "Плитка", "Выбрать", 1)));
+        manager.deleteSubtaskById(first.getId());
+    }
+
+    private static Flow.Subscriber<TaskEvent> collector(List<String> received) {
+        return new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent event) {
+                received.add(event.getSequence() + " " + event.getKind() + " " + event.getTaskId()
+                        + " " + event.getStatus());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+}
@@ -1,15 +1,33 @@
 package test.java.typesoftasks.managers;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import typesoftasks.managers.BinarySnapshot;
+import typesoftasks.managers.DurabilityMode;
 import typesoftasks.managers.FileBackedTaskManager;
+import typesoftasks.managers.FsyncPolicy;
+import typesoftasks.managers.ManagerSaveException;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.SnapshotFormat;
+import typesoftasks.managers.StaleVersionException;
+import typesoftasks.metrics.Metrics;
+import typesoftasks.metrics.MetricsRegistry;
 import typesoftasks.tasks.Epic;
 import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
+import typesoftasks.tasks.TaskStatus;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -90,14 +108,12 @@ class FileBackedTaskManagerTest {
         file.deleteOnExit();
 
         FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        Task t1 = manager.createTask("T1", "desc");
-        t1.setStartTime(LocalDateTime.of(2025, 6, 10, 10, 0));
-        t1.setDuration(Duration.ofMinutes(60));
+        Task t1 = manager.createTask("T1", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
         manager.updateTask(t1);
 
-        Task t2 = manager.createTask("T2", "desc");
-        t2.setStartTime(LocalDateTime.of(2025, 6, 10, 10, 30)); // пересекается
-        t2.setDuration(Duration.ofMinutes(60));
+        Task t2 = manager.createTask("T2", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 30), Duration.ofMinutes(60)); // пересекается
 
         assertThrows(IllegalArgumentException.class, () -> manager.updateTask(t2));
     }
@@ -116,6 +132,7 @@ class FileBackedTaskManagerTest {
         FileBackedTaskManager manager = new FileBackedTaskManager(file);
         Task t1 = manager.createTask("T1", "desc");
         manager.getTask(t1.getId()); // добавляем в историю
+        manager.flushHistory();
 
         FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
 
@@ -123,4 +140,570 @@ class FileBackedTaskManagerTest {
         assertEquals(1, history.size());
         assertEquals(t1.getId(), history.get(0).getId());
     }
+
+    @Test
+    void readsShouldNotRewriteDataFile() throws Exception {
+        File file = File.createTempFile("test-reads", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.historyFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.setHistoryFlushThreshold(3);
+        Task task = manager.createTask("T1", "desc");
+        Epic epic = manager.createEpic("E1", "desc");
+        Subtask subtask = manager.createSubtask("S1", "desc", epic.getId());
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        manager.getTask(task.getId());
+        manager.getEpic(epic.getId());
+        assertEquals(2, manager.getPendingHistoryTouches());
+        assertFalse(FileBackedTaskManager.historyFile(file).exists());
+
+        manager.getSubtaskById(subtask.getId());
+        // Порог достигнут: историю сбрасывает фоновый поток, а не читатель
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getPendingHistoryTouches() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, manager.getPendingHistoryTouches());
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()), "Чтение не должно переписывать файл");
+
+        List<Task> history = FileBackedTaskManager.loadFromFile(file).getHistory();
+        assertEquals(List.of(task.getId(), epic.getId(), subtask.getId()),
+                history.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void shouldReplayJournalOnLoad() throws Exception {
+        File file = File.createTempFile("test-journal", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.journalFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        Task task = manager.createTask("T1", "desc");
+        Epic epic = manager.createEpic("E1", "desc");
+        Subtask sub1 = manager.createSubtask("S1", "desc", epic.getId());
+        Subtask sub2 = manager.createSubtask("S2", "desc", epic.getId());
+        manager.deleteSubtaskById(sub1.getId());
+        manager.getTask(task.getId());
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+
+        assertEquals(3, loaded.getAllTasks().size());
+        assertEquals(List.of(sub2.getId()), loaded.getEpic(epic.getId()).getSubtasks());
+        assertEquals(task.getId(), loaded.getHistory().get(0).getId());
+        assertTrue(loaded.createTask("T2", "desc").getId() > sub2.getId(), "ID не должны переиспользоваться");
+        loaded.close();
+    }
+
+    @Test
+    void shouldIgnoreTruncatedJournalTail() throws Exception {
+        File file = File.createTempFile("test-journal-tail", ".csv");
+        file.deleteOnExit();
+        File journal = FileBackedTaskManager.journalFile(file);
+        journal.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.createTask("T1", "desc");
+        manager.createTask("T2", "desc");
+        manager.close();
+
+        byte[] bytes = Files.readAllBytes(journal.toPath());
+        try (FileOutputStream out = new FileOutputStream(journal)) {
+            out.write(bytes, 0, bytes.length - 3); // обрыв посреди последней записи
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(1, loaded.getAllTasks().size());
+
+        loaded.createTask("T3", "desc");
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(2, reloaded.getAllTasks().size());
+        reloaded.close();
+    }
+
+    @Test
+    void shouldRejectCorruptionInTheMiddleOfJournal() throws Exception {
+        File file = File.createTempFile("test-journal-corrupt", ".csv");
+        file.deleteOnExit();
+        File journal = FileBackedTaskManager.journalFile(file);
+        journal.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.setFsyncPolicy(FsyncPolicy.FULL);
+        manager.createTask("T1", "desc");
+        manager.createTask("T2", "desc");
+        manager.close();
+
+        byte[] bytes = Files.readAllBytes(journal.toPath());
+        bytes[6] ^= 1; // первая запись испорчена, вторая цела
+        Files.write(journal.toPath(), bytes);
+
+        assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL),
+                "Целые записи за повреждённой нельзя молча отбрасывать.");
+        assertEquals(bytes.length, journal.length(), "Журнал с повреждением посередине не должен обрезаться.");
+    }
+
+    @Test
+    void shouldTruncateZeroFilledJournalTail() throws Exception {
+        File file = File.createTempFile("test-journal-zeros", ".csv");
+        file.deleteOnExit();
+        File journal = FileBackedTaskManager.journalFile(file);
+        journal.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.createTask("T1", "desc");
+        manager.close();
+        long length = journal.length();
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(new byte[64]); // место, выделенное под запись, которая не успела попасть на диск
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(length, journal.length());
+        loaded.close();
+    }
+
+    @Test
+    void shouldCompactJournalIntoSnapshot() throws Exception {
+        File file = File.createTempFile("test-journal-compact", ".csv");
+        file.deleteOnExit();
+        File journal = FileBackedTaskManager.journalFile(file);
+        journal.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.setCompactionThreshold(3);
+        for (int i = 0; i < 4; i++) {
+            manager.createTask("T" + i, "desc");
+        }
+        manager.close();
+
+        assertEquals(1, manager.getJournalSize());
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(), "Снимок должен остаться CSV");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(4, loaded.getAllTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void onDemandDurabilityShouldCoalesceWrites() throws Exception {
+        File file = File.createTempFile("test-on-demand", ".csv");
+        file.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.setDurability(DurabilityMode.ON_DEMAND);
+        manager.createTask("T1", "desc");
+        manager.createTask("T2", "desc");
+        manager.createTask("T3", "desc");
+
+        assertEquals(3, manager.getDirtyCount());
+        assertEquals(0, file.length(), "До flush() файл не должен меняться");
+
+        manager.flush();
+
+        assertEquals(0, manager.getDirtyCount());
+        assertEquals(3, FileBackedTaskManager.loadFromFile(file).getAllTasks().size());
+    }
+
+    @Test
+    void groupCommitShouldFlushInBackgroundAndOnClose() throws Exception {
+        File file = File.createTempFile("test-group-commit", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.journalFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.setDurability(DurabilityMode.GROUP_COMMIT, 10);
+        manager.createTask("T1", "desc");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (manager.getDirtyCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, manager.getDirtyCount(), "Фоновый поток должен сбросить изменения");
+
+        manager.setDurability(DurabilityMode.GROUP_COMMIT, 60_000);
+        manager.createTask("T2", "desc");
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(2, loaded.getAllTasks().size(), "close() должен сбросить оставшиеся изменения");
+        loaded.close();
+    }
+
+    @Test
+    void shouldRoundTripBinarySnapshot() throws Exception {
+        File file = File.createTempFile("test-binary", ".bin");
+        file.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+        Task task = manager.createTask("Купить книгу", "физика, химия")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(45))
+                .withStatus(TaskStatus.IN_PROGRESS);
+        manager.updateTask(task);
+        Epic epic = manager.createEpic("Ремонт", "Кухня");
+        Subtask subtask = manager.createSubtask("Покрасить", "стены", epic.getId());
+        manager.getTask(task.getId());
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+
+        Task loadedTask = loaded.getTask(task.getId());
+        assertEquals("Купить книгу", loadedTask.getTitle());
+        assertEquals("физика, химия", loadedTask.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, loadedTask.getStatus());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime());
+        assertEquals(task.getDuration(), loadedTask.getDuration());
+        assertEquals(List.of(subtask.getId()), loaded.getEpic(epic.getId()).getSubtasks());
+        assertEquals(List.of(loadedTask), loaded.getPrioritizedTasks());
+    }
+
+    @Test
+    void shouldConvertCsvToBinarySnapshot() throws Exception {
+        File csv = File.createTempFile("test-convert", ".csv");
+        csv.deleteOnExit();
+        File binary = File.createTempFile("test-convert", ".bin");
+        binary.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(csv);
+        manager.createTask("T1", "desc");
+        Epic epic = manager.createEpic("E1", "desc");
+        manager.createSubtask("S1", "desc", epic.getId());
+
+        BinarySnapshot.convertCsv(csv, binary);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binary, PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY);
+        assertEquals(3, loaded.getAllTasks().size());
+        assertEquals(1, loaded.getSubtasksByEpic(epic.getId()).size());
+    }
+
+    @Test
+    void csvShouldRoundTripSpecialCharactersAndTimes() throws Exception {
+        File file = File.createTempFile("test-csv-quoting", ".csv");
+        file.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Task task = manager.createTask("купить \"книгу\"", "физика, химия,\nбиология")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(90));
+        manager.updateTask(task);
+        Epic epic = manager.createEpic("ремонт", "Кухня, ванная");
+        Subtask subtask = manager.createSubtask("плитка", "", epic.getId());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        Task loadedTask = loaded.getTask(task.getId());
+        assertEquals("купить \"книгу\"", loadedTask.getTitle());
+        assertEquals("физика, химия,\nбиология", loadedTask.getDescription());
+        assertEquals(task.getStartTime(), loadedTask.getStartTime());
+        assertEquals(Duration.ofMinutes(90), loadedTask.getDuration());
+        assertEquals("Кухня, ванная", loaded.getEpic(epic.getId()).getDescription());
+        assertEquals(epic.getId(), loaded.getSubtaskById(subtask.getId()).getEpicId());
+        assertEquals(List.of(loadedTask), loaded.getPrioritizedTasks());
+
+        assertEquals(FileBackedTaskManager.toString(task),
+                FileBackedTaskManager.toString(FileBackedTaskManager.fromString(FileBackedTaskManager.toString(task))));
+    }
+
+    @Test
+    void batchShouldBeFlushedOnceAndReplayed() throws Exception {
+        File file = File.createTempFile("test-batch", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.journalFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        manager.setDurability(DurabilityMode.ON_DEMAND);
+        Subtask subtaskDraft = new Subtask(0, "S1", "desc", -1).withStatus(TaskStatus.IN_PROGRESS);
+        List<Task> created = manager.createAll(List.of(
+                subtaskDraft, new Epic(-1, "E1", "desc"), new Subtask(0, "S2", "desc", -1), new Task(0, "T1", "desc")));
+        assertEquals(1, manager.getDirtyCount(), "Пакет должен помечаться грязным один раз");
+        manager.deleteAll(List.of(created.get(2).getId(), created.get(3).getId()));
+        assertEquals(2, manager.getDirtyCount());
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        Epic epic = loaded.getEpic(created.get(1).getId());
+
+        assertEquals(2, loaded.getAllTasks().size());
+        assertEquals(List.of(created.get(0).getId()), epic.getSubtasks());
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        loaded.close();
+    }
+
+    @Test
+    void searchIndexShouldBeRebuiltOnLoad() throws Exception {
+        File file = File.createTempFile("test-search", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.journalFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        Task book = manager.createTask("Купить книгу", "Физика");
+        Task tree = manager.createTask("Купить ёлку", "К празднику");
+        manager.compact();
+        manager.updateTask(new Task(book.getId(), "Продать книгу", "Физика"));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+
+        assertEquals(List.of(tree.getId()), loaded.search("купить", 10).stream().map(Task::getId).toList(),
+                "Поиск после загрузки должен видеть изменения из журнала.");
+        assertEquals(List.of(book.getId()), loaded.search("прод*", 10).stream().map(Task::getId).toList());
+        loaded.close();
+    }
+
+    @Test
+    void versionsShouldSurviveReload() throws Exception {
+        File file = File.createTempFile("test-versions", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.journalFile(file).deleteOnExit();
+        File binary = File.createTempFile("test-versions", ".bin");
+        binary.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL);
+        Task task = manager.createTask("Задача", "Описание");
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        manager.compact();
+        Task stale = manager.updateTask(task.withStatus(TaskStatus.IN_PROGRESS));
+        Task current = manager.updateTask(stale.withStatus(TaskStatus.DONE));
+        manager.updateEpic(epic);
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(current.getVersion(), loaded.getTask(task.getId()).getVersion(),
+                "Версия должна восстанавливаться из журнала.");
+        assertEquals(2, loaded.getEpic(epic.getId()).getVersion());
+        assertThrows(StaleVersionException.class, () -> loaded.updateTask(stale.withStatus(TaskStatus.NEW)),
+                "Версия, устаревшая до перезапуска, остаётся устаревшей.");
+        BinarySnapshot.write(loaded, binary);
+        loaded.close();
+
+        FileBackedTaskManager fromBinary = FileBackedTaskManager.loadFromFile(binary, PersistenceMode.SNAPSHOT,
+                SnapshotFormat.BINARY);
+        assertEquals(current.getVersion(), fromBinary.getTask(task.getId()).getVersion());
+        assertEquals(4, fromBinary.updateTask(current.withStatus(TaskStatus.NEW)).getVersion());
+        fromBinary.close();
+    }
+
+    @Test
+    void lazyDescriptionsShouldBeReadOnDemandWithinCacheLimit() throws Exception {
+        File file = File.createTempFile("test-lazy-descriptions", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager.descriptionsFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Epic epic = manager.createEpic("Ремонт", "Кухня, ванная и коридор: " + "плитка ".repeat(20));
+        for (int i = 0; i < 50; i++) {
+            manager.createSubtask("Шаг " + i, "Подробное описание шага " + i + ": " + "краска ".repeat(30),
+                    epic.getId());
+        }
+        Task shortTask = manager.createTask("Книга", "Физика");
+        manager.close();
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadWithLazyDescriptions(file,
+                PersistenceMode.SNAPSHOT, SnapshotFormat.CSV, metrics, 1_000);
+        assertTrue(metrics.getGauge("descriptionCachedChars") <= 1_000, "Кэш описаний ограничен.");
+        assertEquals("Физика", loaded.getTask(shortTask.getId()).getDescriptionText(),
+                "Короткое описание остаётся в задаче.");
+        Subtask first = loaded.getSubtasksByEpic(epic.getId()).get(0);
+        assertFalse(first.getDescriptionText() instanceof String, "Длинное описание вынесено из задачи.");
+
+        long reads = metrics.getGauge("descriptionReads");
+        assertTrue(first.getDescription().startsWith("Подробное описание шага 0: краска"));
+        assertEquals(reads + 1, metrics.getGauge("descriptionReads"), "Вытесненное описание читается из файла.");
+        first.getDescription();
+        assertEquals(reads + 1, metrics.getGauge("descriptionReads"), "Повторное чтение попадает в кэш.");
+
+        Subtask done = loaded.updateSubtask(first.withStatus(TaskStatus.DONE));
+        assertSame(first.getDescriptionText(), done.getDescriptionText(), "Копия несёт ссылку, а не текст.");
+        assertEquals(List.of(first.getId()), loaded.search("шага 0", 10).stream().map(Task::getId).toList(),
+                "Поиск работает по вынесенным описаниям.");
+        String description = first.getDescription();
+        loaded.close();
+        assertFalse(FileBackedTaskManager.descriptionsFile(file).exists(), "Файл описаний удаляется при закрытии.");
+        assertThrows(IllegalStateException.class, first::getDescription,
+                "После закрытия вынесенное описание недоступно.");
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(description, reloaded.getSubtaskById(first.getId()).getDescription(),
+                "Сохранение пишет вынесенные описания полностью.");
+        assertEquals(TaskStatus.DONE, reloaded.getSubtaskById(first.getId()).getStatus());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SnapshotFormat.class)
+    void saveShouldCopyLazyDescriptionsWithoutTouchingCache(SnapshotFormat format) throws Exception {
+        File file = File.createTempFile("test-lazy-save", ".snapshot");
+        file.deleteOnExit();
+        FileBackedTaskManager.descriptionsFile(file).deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT, format);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tasks.add(manager.createTask("Задача " + i, "Описание задачи " + i + ": " + "подробно ".repeat(20)));
+        }
+        manager.close();
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadWithLazyDescriptions(file,
+                PersistenceMode.SNAPSHOT, format, metrics, 1_000);
+        Task hot = loaded.getTask(tasks.get(0).getId());
+        hot.getDescription();
+        long reads = metrics.getGauge("descriptionReads");
+        long hits = metrics.getGauge("descriptionCacheHits");
+
+        // Каждое изменение в режиме SNAPSHOT переписывает снимок со всеми описаниями
+        Task changed = loaded.updateTask(loaded.getTask(tasks.get(1).getId()).withStatus(TaskStatus.DONE));
+        loaded.updateTask(changed.withStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(reads, metrics.getGauge("descriptionReads"), "Сохранение не читает описания через кэш.");
+        assertEquals(hits, metrics.getGauge("descriptionCacheHits"));
+        hot.getDescription();
+        assertEquals(hits + 1, metrics.getGauge("descriptionCacheHits"),
+                "Сохранение не вытесняет недавно прочитанное описание.");
+        loaded.close();
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT, format,
+                Metrics.NOOP);
+        for (Task task : tasks) {
+            assertEquals(task.getDescription(), reloaded.getTask(task.getId()).getDescription(),
+                    "Вынесенное описание сохранено полностью.");
+        }
+        assertEquals(TaskStatus.IN_PROGRESS, reloaded.getTask(changed.getId()).getStatus());
+    }
+
+    @Test
+    void saveShouldReplaceSnapshotAtomicallyAndKeepOldOneOnFailure() throws Exception {
+        File file = File.createTempFile("test-atomic-save", ".csv");
+        file.deleteOnExit();
+        File temp = new File(file.getPath() + ".tmp");
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.setFsyncPolicy(FsyncPolicy.FULL);
+        Task task = manager.createTask("T1", "desc");
+        assertFalse(temp.exists(), "Временный файл переименован в снимок.");
+        assertTrue(Files.readString(file.toPath()).matches("(?s).*\\n#crc32c=[0-9a-f]{8}\\n"),
+                "Снимок заканчивается контрольной суммой.");
+        byte[] saved = Files.readAllBytes(file.toPath());
+
+        // Временный файл не создать — сохранение падает, не тронув прежний снимок
+        assertTrue(temp.mkdir());
+        assertThrows(ManagerSaveException.class, () -> manager.createTask("T2", "desc"));
+        assertArrayEquals(saved, Files.readAllBytes(file.toPath()));
+        temp.delete();
+
+        assertEquals(List.of(task.getId()),
+                FileBackedTaskManager.loadFromFile(file).getAllTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void loadShouldRejectCorruptedSnapshot() throws Exception {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File file = File.createTempFile("test-checksum", ".snapshot");
+            file.deleteOnExit();
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.SNAPSHOT, format);
+            manager.setFsyncPolicy(FsyncPolicy.NONE);
+            manager.createTask("Купить книгу", "физика, химия");
+            manager.close();
+
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(file.toPath(), bytes);
+            assertThrows(ManagerSaveException.class,
+                    () -> FileBackedTaskManager.loadFromFile(file, PersistenceMode.SNAPSHOT, format),
+                    "Испорченный снимок " + format + " не загружается молча.");
+        }
+    }
+
+    @Test
+    void historySidecarShouldCarryChecksum() throws Exception {
+        File file = File.createTempFile("test-history-checksum", ".csv");
+        file.deleteOnExit();
+        File sidecar = FileBackedTaskManager.historyFile(file);
+        sidecar.deleteOnExit();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Task task = manager.createTask("T1", "desc");
+        manager.getTask(task.getId());
+        manager.flushHistory();
+        assertTrue(Files.readString(sidecar.toPath()).matches("#crc32c\\n" + task.getId() + "\\n#crc32c=[0-9a-f]{8}\\n"),
+                "Файл истории заканчивается контрольной суммой.");
+        assertFalse(new File(sidecar.getPath() + ".tmp").exists(), "Временный файл переименован в историю.");
+        assertEquals(List.of(task.getId()),
+                FileBackedTaskManager.loadFromFile(file).getHistory().stream().map(Task::getId).toList());
+
+        Files.writeString(sidecar.toPath(), String.valueOf(task.getId()));
+        assertEquals(List.of(task.getId()),
+                FileBackedTaskManager.loadFromFile(file).getHistory().stream().map(Task::getId).toList(),
+                "Файл истории без суммы, записанный раньше, по-прежнему читается.");
+
+        manager.flushHistory();
+        byte[] bytes = Files.readAllBytes(sidecar.toPath());
+        bytes["#crc32c\n".length()] ^= 1;
+        Files.write(sidecar.toPath(), bytes);
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Испорченный файл истории не загружается молча.");
+
+        Files.writeString(sidecar.toPath(), "#crc32c\n" + task.getId());
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Файл истории нового формата без суммы считается обрезанным.");
+    }
+
+    @Test
+    void loadShouldRequireChecksumUnlessSnapshotPredatesIt() throws Exception {
+        File file = File.createTempFile("test-trailer-required", ".csv");
+        file.deleteOnExit();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Task task = manager.createTask("T1", "desc");
+        manager.close();
+        String saved = Files.readString(file.toPath());
+        assertTrue(saved.startsWith("#crc32c\n"), "Снимок начинается строкой-меткой формата.");
+
+        String body = saved.substring(0, saved.lastIndexOf("\n#crc32c=") + 1);
+        Files.writeString(file.toPath(), body);
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Снимок с меткой, но без суммы — обрезанный, а не старый.");
+
+        Files.writeString(file.toPath(), body.substring("#crc32c\n".length()));
+        assertEquals(List.of(task.getId()),
+                FileBackedTaskManager.loadFromFile(file).getAllTasks().stream().map(Task::getId).toList(),
+                "Снимок без метки записан до появления суммы и читается без неё.");
+
+        File binary = File.createTempFile("test-trailer-required", ".bin");
+        binary.deleteOnExit();
+        FileBackedTaskManager binaryManager = new FileBackedTaskManager(binary, PersistenceMode.SNAPSHOT,
+                SnapshotFormat.BINARY);
+        binaryManager.createTask("T1", "desc");
+        binaryManager.close();
+        byte[] bytes = Files.readAllBytes(binary.toPath());
+        Files.write(binary.toPath(), Arrays.copyOf(bytes, bytes.length - 18));
+        assertThrows(ManagerSaveException.class,
+                () -> FileBackedTaskManager.loadFromFile(binary, PersistenceMode.SNAPSHOT, SnapshotFormat.BINARY),
+                "Бинарный снимок текущей версии без суммы не загружается.");
+    }
+
+    @Test
+    void failedCleanupShouldNotHideSaveError() throws Exception {
+        File file = File.createTempFile("test-cleanup", ".csv");
+        file.deleteOnExit();
+        File temp = new File(file.getPath() + ".tmp");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+
+        // Непустой каталог на месте временного файла: не открыть и не удалить
+        assertTrue(temp.mkdir());
+        File blocker = new File(temp, "blocker");
+        assertTrue(blocker.createNewFile());
+        try {
+            ManagerSaveException e = assertThrows(ManagerSaveException.class, () -> manager.createTask("T1", "desc"));
+            assertFalse(e.getCause() instanceof DirectoryNotEmptyException, "Причина — ошибка записи, а не очистки.");
+            assertEquals(1, e.getCause().getSuppressed().length, "Ошибка очистки прикреплена к исходной.");
+            assertInstanceOf(DirectoryNotEmptyException.class, e.getCause().getSuppressed()[0]);
+        } finally {
+            blocker.delete();
+            temp.delete();
+        }
+    }
 }
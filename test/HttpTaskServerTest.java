@@ -0,0 +1,176 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import typesoftasks.http.HttpTaskServer;
+import typesoftasks.managers.Managers;
+import typesoftasks.managers.TaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Каждый сценарий проходит на всех менеджерах: InMemoryTaskManager сервер вызывает под его монитором,
+// остальные — напрямую. Id у шардов идут не подряд, поэтому берутся из ответов.
+class HttpTaskServerTest {
+
+    private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+),");
+
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    private void start(String kind) throws IOException {
+        switch (kind) {
+            case "inMemory":
+                manager = Managers.getDefault();
+                break;
+            case "sharded":
+                manager = Managers.getSharded();
+                break;
+            default:
+                manager = Managers.getConcurrent();
+        }
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"inMemory", "concurrent", "sharded"})
+    void shouldCreateReadUpdateAndDeleteTasks(String kind) throws Exception {
+        start(kind);
+        HttpResponse<String> created = post("/tasks", "{\"title\":\"Купить \\\"книгу\\\"\",\"description\":\"Физика\","
+                + "\"startTime\":\"2025-01-01T09:00\",\"duration\":60}");
+        assertEquals(201, created.statusCode());
+        int id = id(created.body());
+        assertEquals("{\"id\":" + id + ",\"type\":\"TASK\",\"title\":\"Купить \\\"книгу\\\"\",\"description\":\"Физика\","
+                + "\"status\":\"NEW\",\"version\":1,\"duration\":60,\"startTime\":\"2025-01-01T09:00\","
+                + "\"endTime\":\"2025-01-01T10:00\"}", created.body());
+
+        HttpResponse<String> overlapping = post("/tasks", "{\"title\":\"Встреча\",\"description\":\"\","
+                + "\"startTime\":\"2025-01-01T09:30\",\"duration\":30}");
+        assertEquals(406, overlapping.statusCode(), "Пересечение по времени должно давать 406.");
+
+        assertEquals(200, post("/tasks", "{\"id\":" + id + ",\"version\":1,\"title\":\"Купить книгу\","
+                + "\"description\":\"Физика\",\"status\":\"DONE\"}").statusCode());
+        assertEquals(409, post("/tasks", "{\"id\":" + id + ",\"version\":1,\"title\":\"Купить книгу\","
+                + "\"description\":\"Физика\",\"status\":\"NEW\"}").statusCode(), "Устаревшая версия — 409.");
+        assertEquals(TaskStatus.DONE, manager.getTask(id).getStatus());
+
+        HttpResponse<String> list = get("/tasks");
+        assertEquals(200, list.statusCode());
+        assertTrue(list.body().startsWith("[{\"id\":" + id + ",") && list.body().contains("\"version\":2"),
+                list.body());
+        assertTrue(get("/history").body().startsWith("[{\"id\":" + id + ","), "Чтение задачи попадает в историю.");
+
+        assertEquals(204, send(HttpRequest.newBuilder(uri("/tasks/" + id)).DELETE()).statusCode());
+        assertEquals(404, get("/tasks/" + id).statusCode());
+        assertEquals("[]", get("/prioritized").body());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"inMemory", "concurrent", "sharded"})
+    void shouldServeEpicsWithSubtasksAndRejectBadRequests(String kind) throws Exception {
+        start(kind);
+        Epic epic = manager.createEpic("Ремонт", "Кухня");
+        HttpResponse<String> created = post("/subtasks", "{\"title\":\"Покрасить\",\"description\":\"Стены\","
+                + "\"epicId\":" + epic.getId() + ",\"status\":\"IN_PROGRESS\"}");
+        assertEquals(201, created.statusCode());
+        int subtaskId = id(created.body());
+        assertEquals(406, post("/subtasks", "{\"title\":\"Без эпика\",\"epicId\":999}").statusCode());
+
+        HttpResponse<String> read = get("/epics/" + epic.getId());
+        assertTrue(read.body().contains("\"status\":\"IN_PROGRESS\"")
+                && read.body().contains("\"subtasks\":[" + subtaskId + "]"), read.body());
+        assertTrue(get("/epics/" + epic.getId() + "/subtasks").body().contains("\"epicId\":" + epic.getId()));
+
+        assertEquals(400, post("/tasks", "{\"title\":").statusCode(), "Некорректный JSON — 400.");
+        assertEquals(400, post("/subtasks", "{\"title\":\"Без epicId\"}").statusCode());
+        assertEquals(400, get("/tasks/abc").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/tasks")).PUT(HttpRequest.BodyPublishers.noBody()))
+                .statusCode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"inMemory", "concurrent", "sharded"})
+    void unknownPathsShouldReturnNotFound(String kind) throws Exception {
+        start(kind);
+        Epic epic = manager.createEpic("Ремонт", "Кухня");
+        String epicPath = "/epics/" + epic.getId();
+
+        assertEquals(404, get("/tasks/1/foo").statusCode(), "Лишний сегмент пути — 404.");
+        assertEquals(404, get(epicPath + "/foo").statusCode());
+        assertEquals(404, get("/subtasks/1/subtasks").statusCode(), "Подзадачи есть только у эпика.");
+        assertEquals(404, get(epicPath + "/subtasks/1").statusCode());
+        assertEquals(404, get("/tasksx").statusCode(), "Контекст не должен совпадать по префиксу строки.");
+        assertEquals(404, get("/history/1").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri(epicPath + "/subtasks")).DELETE()).statusCode());
+        assertNotNull(manager.getEpic(epic.getId()), "DELETE подресурса не должен удалять эпик.");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"inMemory", "concurrent", "sharded"})
+    void postWithIdShouldOnlyUpdateExistingTasksOfSameType(String kind) throws Exception {
+        start(kind);
+        Epic epic = manager.createEpic("Ремонт", "Кухня");
+        int taskId = id(post("/tasks", "{\"title\":\"Книга\",\"description\":\"Физика\"}").body());
+
+        assertEquals(404, post("/tasks", "{\"id\":999,\"title\":\"Чужой id\"}").statusCode(),
+                "Обновление несуществующей задачи не должно её создавать.");
+        assertNull(manager.find(999));
+        assertEquals(404, post("/tasks", "{\"id\":" + epic.getId() + ",\"title\":\"Не эпик\"}").statusCode(),
+                "Id эпика нельзя обновить как задачу.");
+        assertEquals("Ремонт", manager.getEpic(epic.getId()).getTitle());
+        assertNull(manager.getTask(epic.getId()), "Под id эпика не должна появиться задача.");
+
+        assertEquals(400, post("/tasks", "{\"id\":" + (taskId + (1L << 32)) + ",\"title\":\"Переполнение\"}")
+                .statusCode(), "Id вне диапазона int — 400, а не задача с усечённым id.");
+        assertEquals(400, post("/subtasks", "{\"title\":\"Шаг\",\"epicId\":" + (epic.getId() + (1L << 32)) + "}")
+                .statusCode());
+        assertEquals("Книга", manager.getTask(taskId).getTitle());
+
+        HttpResponse<String> blind = post("/tasks", "{\"id\":" + taskId + ",\"title\":\"Книга 2\"}");
+        assertEquals(200, blind.statusCode(), "Обновление без версии существующей задачи допустимо.");
+        assertTrue(blind.body().contains("\"version\":2"), blind.body());
+        int created = id(post("/tasks", "{\"title\":\"Новая\"}").body());
+        assertEquals(3, manager.getAllTasksView().size(), "Новая задача не должна затирать существующие.");
+        assertNotEquals(taskId, created);
+    }
+
+    private static int id(String body) {
+        Matcher matcher = ID.matcher(body);
+        assertTrue(matcher.find(), body);
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
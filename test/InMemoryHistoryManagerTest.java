@@ -1,12 +1,21 @@
 package test.java.typesoftasks.managers;
 
+import typesoftasks.managers.HistoryManager;
 import typesoftasks.managers.InMemoryHistoryManager;
+import typesoftasks.managers.Managers;
+import typesoftasks.managers.TaskManager;
 import typesoftasks.tasks.Epic;
 import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,7 +27,7 @@ class InMemoryHistoryManagerTest {
         Epic epic = taskManager.createEpic("Epic 1", "Description of Epic 1");
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-            epic.addSubtask(epic.getId());
+            taskManager.updateSubtask(new Subtask(epic.getId(), "Subtask", "Description", epic.getId()));
         });
 
         assertEquals("Epic cannot be its own subtask", exception.getMessage(), "Сообщение об ошибке не совпадает.");
@@ -112,6 +121,89 @@ class InMemoryHistoryManagerTest {
         assertEquals(List.of(task3), historyManager.getHistory());
     }
 
+    @Test
+    void shouldEvictLeastRecentWhenFull() {
+        InMemoryHistoryManager historyManager = new InMemoryHistoryManager(2);
+        Task task1 = new Task(1, "Task 1", "Description 1");
+        Task task2 = new Task(2, "Task 2", "Description 2");
+        Task task3 = new Task(3, "Task 3", "Description 3");
+
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task1); // task2 теперь самый старый
+        historyManager.add(task3);
+
+        assertEquals(List.of(task1, task3), historyManager.getHistory());
+        assertEquals(2, historyManager.size());
+    }
 
+    @Test
+    void defaultHistoryShouldBeUnbounded() {
+        HistoryManager historyManager = Managers.getDefaultHistory();
+        for (int id = 1; id <= 20_000; id++) {
+            historyManager.add(new Task(id, "Task " + id, "Description"));
+        }
 
-}
\ No newline at end of file
+        assertEquals(20_000, historyManager.size(), "История по умолчанию не должна терять просмотры.");
+    }
+
+    @Test
+    void managersShouldUseInjectedHistory() {
+        List<TaskManager> managers = List.of(Managers.getDefault(Managers.getDefaultHistory(2)),
+                Managers.getConcurrent(Managers.getDefaultHistory(2)),
+                Managers.getSharded(Managers.getDefaultHistory(2)));
+        for (TaskManager manager : managers) {
+            Task first = manager.createTask("Task 1", "Description");
+            Task second = manager.createTask("Task 2", "Description");
+            Task third = manager.createTask("Task 3", "Description");
+            manager.getTask(first.getId());
+            manager.getTask(second.getId());
+            manager.getTask(third.getId());
+
+            assertEquals(List.of(second, third), manager.getHistory(),
+                    "Ёмкость истории должна доходить до " + manager.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void shouldReturnOnlyMostRecentViews() {
+        HistoryManager historyManager = Managers.getDefaultHistory(10);
+        for (int id = 1; id <= 5; id++) {
+            historyManager.add(new Task(id, "Task " + id, "Description"));
+        }
+
+        assertEquals(List.of(4, 5), historyManager.getHistory(2).stream().map(Task::getId).toList());
+        assertEquals(5, historyManager.getHistory(100).size());
+        assertTrue(historyManager.getHistory(0).isEmpty());
+    }
+
+    @Test
+    void concurrentViewsShouldRespectCapacity() throws Exception {
+        InMemoryHistoryManager historyManager = new InMemoryHistoryManager(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            jobs.add(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int id = (i * 31 + seed) % 500;
+                    historyManager.add(new Task(id, "Task", "Description"));
+                    if (i % 7 == 0) {
+                        historyManager.remove((id + 1) % 500);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(historyManager.size(), history.size(), "Счётчик размера разошёлся с содержимым.");
+        assertTrue(history.size() <= 100, "История не должна превышать ёмкость.");
+        assertEquals(history.size(), history.stream().map(Task::getId).distinct().count(),
+                "В истории не должно быть повторов.");
+    }
+}
@@ -2,14 +2,27 @@ package test.java.typesoftasks.managers;
 
 import typesoftasks.tasks.Epic;
 import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.managers.StaleVersionException;
+import typesoftasks.managers.TaskEvent;
+import typesoftasks.metrics.MetricsRegistry;
 import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
 import org.junit.jupiter.api.Test;
 import typesoftasks.tasks.TaskStatus;
+import typesoftasks.tasks.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +53,7 @@ class InMemoryTaskManagerTest {
         InMemoryTaskManager taskManager = new InMemoryTaskManager();
         Epic epic = taskManager.createEpic("Epic 1", "Description of Epic 1");
         Subtask subtask = taskManager.createSubtask("Subtask 1", "Description of Subtask 1", epic.getId());
+        epic = taskManager.getEpic(epic.getId());
 
         assertTrue(epic.getSubtasks().contains(subtask.getId()), "Подзадача должна быть добавлена к эпик.");
     }
@@ -125,8 +139,8 @@ class InMemoryTaskManagerTest {
         Subtask s1 = taskManager.createSubtask("Sub1", "desc", epic.getId());
         Subtask s2 = taskManager.createSubtask("Sub2", "desc", epic.getId());
 
-        s1.setStatus(TaskStatus.DONE);
-        s2.setStatus(TaskStatus.DONE);
+        s1 = s1.withStatus(TaskStatus.DONE);
+        s2 = s2.withStatus(TaskStatus.DONE);
         taskManager.updateSubtask(s1);
         taskManager.updateSubtask(s2);
 
@@ -140,8 +154,8 @@ class InMemoryTaskManagerTest {
         Subtask s1 = taskManager.createSubtask("Sub1", "desc", epic.getId());
         Subtask s2 = taskManager.createSubtask("Sub2", "desc", epic.getId());
 
-        s1.setStatus(TaskStatus.NEW);
-        s2.setStatus(TaskStatus.DONE);
+        s1 = s1.withStatus(TaskStatus.NEW);
+        s2 = s2.withStatus(TaskStatus.DONE);
         taskManager.updateSubtask(s1);
         taskManager.updateSubtask(s2);
 
@@ -155,8 +169,8 @@ class InMemoryTaskManagerTest {
         Subtask s1 = taskManager.createSubtask("Sub1", "desc", epic.getId());
         Subtask s2 = taskManager.createSubtask("Sub2", "desc", epic.getId());
 
-        s1.setStatus(TaskStatus.IN_PROGRESS);
-        s2.setStatus(TaskStatus.IN_PROGRESS);
+        s1 = s1.withStatus(TaskStatus.IN_PROGRESS);
+        s2 = s2.withStatus(TaskStatus.IN_PROGRESS);
         taskManager.updateSubtask(s1);
         taskManager.updateSubtask(s2);
 
@@ -167,18 +181,545 @@ class InMemoryTaskManagerTest {
     void shouldThrowExceptionIfTasksIntersect() {
         InMemoryTaskManager taskManager = new InMemoryTaskManager();
 
-        Task task1 = taskManager.createTask("T1", "desc");
-        task1.setStartTime(LocalDateTime.of(2025, 6, 10, 10, 0));
-        task1.setDuration(Duration.ofMinutes(60));
+        Task task1 = taskManager.createTask("T1", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
         taskManager.updateTask(task1);
 
-        Task task2 = taskManager.createTask("T2", "desc");
-        task2.setStartTime(LocalDateTime.of(2025, 6, 10, 10, 30)); // пересекается
-        task2.setDuration(Duration.ofMinutes(60));
+        Task task2 = taskManager.createTask("T2", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 30), Duration.ofMinutes(60)); // пересекается
 
         assertThrows(IllegalArgumentException.class, () -> {
             taskManager.updateTask(task2);
         });
     }
 
-}
\ No newline at end of file
+    @Test
+    void tasksTouchingAtBoundaryShouldNotIntersect() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+
+        Task task1 = taskManager.createTask("T1", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
+        taskManager.updateTask(task1);
+
+        Task task2 = taskManager.createTask("T2", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 11, 0), Duration.ofMinutes(30)); // начинается ровно в конце T1
+        assertDoesNotThrow(() -> taskManager.updateTask(task2));
+
+        Task task3 = taskManager.createTask("T3", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 9, 0), Duration.ofMinutes(60)); // заканчивается ровно в начале T1
+        assertDoesNotThrow(() -> taskManager.updateTask(task3));
+
+        assertEquals(List.of(task3, task1, task2), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void shouldReturnTasksOverlappingRange() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Epic epic = taskManager.createEpic("Epic", "desc");
+
+        Task task = taskManager.createTask("T1", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
+        taskManager.updateTask(task);
+
+        Subtask subtask = taskManager.createSubtask("S1", "desc", epic.getId())
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 12, 0), Duration.ofMinutes(60));
+        taskManager.updateSubtask(subtask);
+
+        assertEquals(List.of(task, subtask), taskManager.getOverlappingTasks(
+                LocalDateTime.of(2025, 6, 10, 10, 30), LocalDateTime.of(2025, 6, 10, 12, 30)));
+        assertEquals(List.of(), taskManager.getOverlappingTasks(
+                LocalDateTime.of(2025, 6, 10, 11, 0), LocalDateTime.of(2025, 6, 10, 12, 0)));
+        assertEquals(List.of(subtask), taskManager.getOverlappingTasks(
+                LocalDateTime.of(2025, 6, 10, 11, 0), LocalDateTime.of(2025, 6, 10, 12, 1)));
+    }
+
+    @Test
+    void rejectedUpdateShouldKeepPreviousSchedule() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+
+        Task task1 = taskManager.createTask("T1", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
+        taskManager.updateTask(task1);
+
+        Task task2 = taskManager.createTask("T2", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 12, 0), Duration.ofMinutes(60));
+        taskManager.updateTask(task2);
+
+        Task moved = new Task(task2.getId(), "T2", "desc")
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 30), Duration.ofMinutes(60));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.updateTask(moved));
+
+        assertEquals(List.of(task1, task2), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void viewsShouldBeLiveAndReadOnly() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Collection<Task> all = taskManager.getAllTasksView();
+        NavigableSet<Task> prioritized = taskManager.getPrioritizedTasksView();
+
+        Task created = taskManager.createTask("T1", "desc");
+        Epic epic = taskManager.createEpic("E1", "desc");
+        taskManager.createSubtask("S1", "desc", epic.getId());
+        Task task = created.withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(30));
+        taskManager.updateTask(task);
+
+        assertEquals(3, all.size());
+        assertEquals(List.of(task), List.copyOf(prioritized));
+        assertThrows(UnsupportedOperationException.class, () -> prioritized.remove(task));
+        assertThrows(UnsupportedOperationException.class, () -> taskManager.getAllEpics().clear());
+    }
+
+    @Test
+    void shouldPagePrioritizedTasksByRangeAndCursor() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        LocalDateTime start = LocalDateTime.of(2025, 6, 10, 8, 0);
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task task = taskManager.createTask("T" + i, "desc")
+                    .withSchedule(start.plusHours(i), Duration.ofMinutes(30));
+            taskManager.updateTask(task);
+            created.add(task);
+        }
+
+        assertEquals(created.subList(1, 3), taskManager.getPrioritizedTasksBetween(start.plusHours(1), start.plusHours(3)));
+        assertEquals(created.subList(0, 2), taskManager.getPrioritizedTasksAfter(null, 2));
+        assertEquals(created.subList(2, 4), taskManager.getPrioritizedTasksAfter(created.get(1), 2));
+        assertEquals(created.subList(4, 5), taskManager.getPrioritizedTasksAfter(created.get(3), 2));
+    }
+
+    @Test
+    void epicTimeFieldsShouldFollowSubtasks() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Epic epic = taskManager.createEpic("Epic", "desc");
+        Subtask s1 = taskManager.createSubtask("Sub1", "desc", epic.getId());
+        Subtask s2 = taskManager.createSubtask("Sub2", "desc", epic.getId());
+
+        s1 = s1.withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(60));
+        taskManager.updateSubtask(s1);
+        s2 = s2.withSchedule(LocalDateTime.of(2025, 6, 10, 14, 0), Duration.ofMinutes(30));
+        taskManager.updateSubtask(s2);
+        epic = taskManager.getEpic(epic.getId());
+
+        assertEquals(LocalDateTime.of(2025, 6, 10, 10, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 6, 10, 14, 30), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        taskManager.deleteSubtaskById(s2.getId());
+        epic = taskManager.getEpic(epic.getId());
+
+        assertEquals(LocalDateTime.of(2025, 6, 10, 11, 0), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        assertEquals(1, epic.getStatusCount(TaskStatus.NEW));
+    }
+
+    @Test
+    void epicStatusShouldFollowSubtaskDeletion() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Epic epic = taskManager.createEpic("Epic", "desc");
+        Subtask s1 = taskManager.createSubtask("Sub1", "desc", epic.getId());
+        Subtask s2 = taskManager.createSubtask("Sub2", "desc", epic.getId());
+        s1 = s1.withStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(s1);
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpic(epic.getId()).getStatus());
+
+        taskManager.deleteSubtaskById(s2.getId());
+        assertEquals(TaskStatus.DONE, taskManager.getEpic(epic.getId()).getStatus());
+
+        taskManager.deleteSubtaskById(s1.getId());
+        assertEquals(TaskStatus.NEW, taskManager.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void createAllShouldLinkSubtasksToEpicsFromSameBatch() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epicDraft = new Epic(-1, "Эпик", "Описание");
+        Subtask subtaskDraft = new Subtask(0, "Подзадача", "Описание", -1)
+                .withStatus(TaskStatus.DONE)
+                .withSchedule(LocalDateTime.of(2024, 1, 1, 10, 0), Duration.ofMinutes(30));
+        Task taskDraft = new Task(0, "Задача", "Описание");
+
+        List<Task> created = manager.createAll(List.of(subtaskDraft, epicDraft, taskDraft));
+
+        assertEquals(3, created.size());
+        Subtask subtask = (Subtask) created.get(0);
+        Epic epic = (Epic) created.get(1);
+        assertEquals(epic.getId(), subtask.getEpicId(), "Подзадача должна ссылаться на созданный эпик.");
+        assertEquals(List.of(subtask.getId()), epic.getSubtasks());
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика должен учитывать подзадачи пакета.");
+        assertTrue(created.get(0).getId() < created.get(1).getId(), "Id выдаются в порядке черновиков.");
+        assertEquals(List.of(subtask), manager.getPrioritizedTasks());
+    }
+
+    @Test
+    void createAllShouldApplyNothingIfBatchOverlaps() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task first = new Task(0, "Первая", "Описание")
+                .withSchedule(LocalDateTime.of(2024, 1, 1, 10, 0), Duration.ofMinutes(60));
+        Task second = new Task(0, "Вторая", "Описание")
+                .withSchedule(LocalDateTime.of(2024, 1, 1, 10, 30), Duration.ofMinutes(60));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.createAll(List.of(new Task(0, "Без времени", "Описание"), first, second)));
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.createAll(List.of(new Subtask(0, "Сирота", "Описание", 42))));
+        assertTrue(manager.getAllTasks().isEmpty(), "Ни одна задача пакета не должна быть создана.");
+        assertEquals(1, manager.createTask("Следующая", "Описание").getId(), "Id не должны расходоваться впустую.");
+    }
+
+    @Test
+    void updateAllShouldSwapSlotsThatSingleUpdatesCannot() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        LocalDateTime morning = LocalDateTime.of(2024, 1, 1, 9, 0);
+        LocalDateTime noon = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Task a = manager.createTask("A", "Описание");
+        Task b = manager.createTask("B", "Описание");
+        a = a.withSchedule(morning, Duration.ofHours(1));
+        manager.updateTask(a);
+        b = b.withSchedule(noon, Duration.ofHours(1));
+        manager.updateTask(b);
+
+        Task movedA = new Task(a.getId(), "A", "Описание").withSchedule(noon, Duration.ofHours(1));
+        Task movedB = new Task(b.getId(), "B", "Описание").withSchedule(morning, Duration.ofHours(1));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(movedA));
+        manager.updateAll(List.of(movedA, movedB));
+
+        assertEquals(List.of(movedB, movedA), manager.getPrioritizedTasks());
+        assertEquals(noon, manager.getTask(a.getId()).getStartTime());
+    }
+
+    @Test
+    void updateShouldRejectStaleVersion() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = manager.createTask("Задача", "Описание");
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        Subtask subtask = manager.createSubtask("Подзадача", "Описание", epic.getId());
+        assertEquals(Task.FIRST_VERSION, task.getVersion(), "Созданная задача получает первую версию.");
+
+        Task first = manager.updateTask(task.withStatus(TaskStatus.IN_PROGRESS));
+        StaleVersionException stale = assertThrows(StaleVersionException.class,
+                () -> manager.updateTask(task.withStatus(TaskStatus.DONE)),
+                "Изменение по прочитанной ранее версии должно быть отклонено.");
+        assertEquals(2, stale.getActualVersion());
+        assertSame(first, manager.getTask(task.getId()), "Отклонённое обновление ничего не меняет.");
+
+        Task retried = manager.updateTask(manager.getTask(task.getId()).withStatus(TaskStatus.DONE));
+        assertEquals(3, retried.getVersion(), "Повтор по актуальной версии проходит.");
+
+        manager.updateSubtask(subtask.withStatus(TaskStatus.DONE));
+        assertThrows(StaleVersionException.class, () -> manager.updateAll(List.of(
+                retried.withStatus(TaskStatus.NEW), subtask.withStatus(TaskStatus.NEW))));
+        assertEquals(TaskStatus.DONE, manager.getTask(task.getId()).getStatus(),
+                "Пакет с устаревшей версией не применяется целиком.");
+        assertEquals(TaskStatus.DONE, manager.getEpic(epic.getId()).getStatus());
+
+        manager.deleteTaskById(task.getId());
+        assertThrows(StaleVersionException.class, () -> manager.updateTask(retried),
+                "Удалённую задачу нельзя обновить по её версии.");
+        Task draft = manager.updateTask(new Task(subtask.getId() + 1, "Черновик", "Описание"));
+        assertEquals(Task.FIRST_VERSION, draft.getVersion(), "Черновик без версии записывается без проверки.");
+    }
+
+    @Test
+    void updateEpicShouldRejectStaleVersion() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        Subtask subtask = manager.createSubtask("Подзадача", "Описание", epic.getId());
+        manager.updateSubtask(subtask.withStatus(TaskStatus.DONE));
+
+        Epic first = manager.updateEpic(epic.withDescription("Первое изменение"));
+        assertEquals(Task.FIRST_VERSION, epic.getVersion(), "Присланный эпик не должен меняться.");
+        assertEquals(Task.FIRST_VERSION + 1, first.getVersion());
+        assertEquals(TaskStatus.DONE, first.getStatus(), "Статус эпика по-прежнему выводится из подзадач.");
+        assertEquals(List.of(subtask.getId()), first.getSubtasks());
+
+        StaleVersionException stale = assertThrows(StaleVersionException.class,
+                () -> manager.updateEpic(epic.withDescription("Второе изменение")),
+                "Изменение эпика по прочитанной ранее версии должно быть отклонено.");
+        assertEquals(Task.FIRST_VERSION + 1, stale.getActualVersion());
+        assertThrows(StaleVersionException.class, () -> manager.updateAll(List.of(epic)));
+        assertEquals("Первое изменение", manager.getEpic(epic.getId()).getDescription(),
+                "Отклонённое обновление ничего не меняет.");
+    }
+
+    @Test
+    void eventsShouldDescribeEveryChangeInOrder() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setEventDelivery(Runnable::run, 16);
+        List<String> received = new ArrayList<>();
+        manager.events().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent event) {
+                received.add(event.getSequence() + " " + event.getKind() + " " + event.getTaskId()
+                        + " " + event.getStatus() + (event.getPreviousStatus() != null
+                        ? " <- " + event.getPreviousStatus() : ""));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        Subtask subtask = manager.createSubtask("Подзадача", "Описание", epic.getId());
+        manager.getSubtaskById(subtask.getId());
+        manager.updateSubtask(subtask.withStatus(TaskStatus.DONE));
+        manager.deleteEpicById(epic.getId());
+
+        assertEquals(List.of(
+                "1 CREATED 1 NEW",
+                "2 CREATED 2 NEW",
+                "3 HISTORY_TOUCHED 2 NEW",
+                "4 UPDATED 2 DONE",
+                "5 EPIC_STATUS_CHANGED 1 DONE <- NEW",
+                "6 DELETED 2 DONE",
+                "7 DELETED 1 DONE"), received);
+    }
+
+    @Test
+    void slowSubscriberShouldNotBlockWritesAndShouldSeeGap() throws Exception {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        MetricsRegistry metrics = new MetricsRegistry();
+        manager.setMetrics(metrics);
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        manager.setEventDelivery(delivery, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(1);
+        List<Long> sequences = new ArrayList<>();
+        manager.events().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TaskEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                sequences.add(event.getSequence());
+                if (event.getSequence() == 101) {
+                    drained.countDown();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 100; i++) {
+                manager.createTask("Задача " + i, "Описание");
+            }
+        }, "Запись не должна ждать подписчика.");
+        assertTrue(metrics.counter("eventsDropped").get() > 0, "Не поместившиеся в буфер события отбрасываются.");
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metrics.getGauge("eventLag") > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        manager.createTask("После разбора очереди", "Описание");
+        assertTrue(drained.await(5, TimeUnit.SECONDS), "Событие после разбора очереди должно дойти.");
+        delivery.shutdown();
+        assertEquals(1L, sequences.get(0));
+        assertTrue(sequences.size() < 101, "Подписчик видит пропуск по номерам событий.");
+        assertEquals(101 - sequences.size(), metrics.counter("eventsDropped").get());
+    }
+
+    @Test
+    void deleteAllShouldRemoveMixedIdsAndRefreshEpics() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = manager.createTask("Задача", "Описание");
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        Subtask done = manager.createSubtask("Готово", "Описание", epic.getId());
+        Subtask open = manager.createSubtask("В работе", "Описание", epic.getId());
+        Subtask other = manager.createSubtask("Ещё", "Описание", epic.getId());
+        done = done.withStatus(TaskStatus.DONE);
+        manager.updateSubtask(done);
+
+        manager.deleteAll(List.of(task.getId(), open.getId(), other.getId(), 999));
+        epic = manager.getEpic(epic.getId());
+
+        assertEquals(List.of(done.getId()), epic.getSubtasks());
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика должен пересчитаться после пакета.");
+        assertNull(manager.getTask(task.getId()));
+
+        manager.deleteAllSubtasksOf(epic.getId());
+        epic = manager.getEpic(epic.getId());
+
+        assertTrue(epic.getSubtasks().isEmpty());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+    }
+
+    @Test
+    void statusIndexShouldFollowUpdatesAndEpicStatus() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Task task = taskManager.createTask("Задача", "Описание");
+        Epic epic = taskManager.createEpic("Эпик", "Описание");
+        Subtask first = taskManager.createSubtask("Подзадача 1", "Описание", epic.getId());
+        Subtask second = taskManager.createSubtask("Подзадача 2", "Описание", epic.getId());
+
+        assertEquals(4, taskManager.countByStatus(TaskStatus.NEW), "Все новые задачи должны быть в индексе.");
+
+        task = task.withStatus(TaskStatus.DONE);
+        taskManager.updateTask(task);
+        first = first.withStatus(TaskStatus.DONE);
+        taskManager.updateSubtask(first);
+
+        assertEquals(List.of(task, first), taskManager.getByStatus(TaskStatus.DONE),
+                "Индекс должен видеть новые статусы после обновления.");
+        assertEquals(List.of(epic), taskManager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.IN_PROGRESS),
+                "Пересчитанный статус эпика должен попасть в индекс.");
+        assertEquals(1, taskManager.countByTypeAndStatus(TaskType.SUBTASK, TaskStatus.NEW),
+                "Вторая подзадача остаётся новой.");
+
+        taskManager.deleteSubtaskById(second.getId());
+        assertEquals(List.of(epic), taskManager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.DONE),
+                "После удаления незавершённой подзадачи эпик выполнен.");
+        taskManager.deleteEpicById(epic.getId());
+        assertEquals(List.of(task), taskManager.getByStatus(TaskStatus.DONE),
+                "Удалённые эпик и подзадачи не должны оставаться в индексе.");
+        assertEquals(0, taskManager.countByStatus(TaskStatus.NEW) + taskManager.countByStatus(TaskStatus.IN_PROGRESS),
+                "Других задач в индексе нет.");
+    }
+
+    @Test
+    void statusIndexShouldMatchFullScanAfterRandomChanges() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Random random = new Random(7);
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            epics.add(taskManager.createEpic("Эпик " + i, "Описание"));
+        }
+        TaskStatus[] values = TaskStatus.values();
+
+        for (int step = 0; step < 5_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 3) {
+                taskManager.createTask("Задача", "Описание");
+            } else if (action < 6) {
+                Epic epic = epics.get(random.nextInt(epics.size()));
+                if (taskManager.getEpic(epic.getId()) != null) {
+                    taskManager.createSubtask("Подзадача", "Описание", epic.getId());
+                }
+            } else if (action < 9) {
+                List<Task> all = taskManager.getAllTasks();
+                Task picked = all.get(random.nextInt(all.size()));
+                TaskStatus status = values[random.nextInt(values.length)];
+                if (picked instanceof Subtask) {
+                    taskManager.updateSubtask(((Subtask) picked).withStatus(status));
+                } else if (picked instanceof Epic) {
+                    // Статус эпика выводится из подзадач
+                    taskManager.updateEpic((Epic) picked);
+                } else {
+                    taskManager.updateTask(picked.withStatus(status));
+                }
+            } else {
+                List<Task> all = taskManager.getAllTasks();
+                taskManager.deleteAll(List.of(all.get(random.nextInt(all.size())).getId()));
+            }
+        }
+
+        for (TaskType type : TaskType.values()) {
+            for (TaskStatus status : values) {
+                List<Task> scanned = taskManager.getAllTasks().stream()
+                        .filter(task -> task.getType() == type && task.getStatus() == status)
+                        .toList();
+                List<Task> indexed = taskManager.getByTypeAndStatus(type, status);
+                assertEquals(scanned.size(), taskManager.countByTypeAndStatus(type, status),
+                        "Счётчик индекса расходится с перебором: " + type + " " + status);
+                assertTrue(indexed.containsAll(scanned) && scanned.containsAll(indexed),
+                        "Индекс расходится с перебором: " + type + " " + status);
+            }
+        }
+    }
+
+    @Test
+    void searchShouldMatchCyrillicWordsPrefixesAndGroups() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Task book = taskManager.createTask("Купить книгу", "Физика, химия и биология");
+        Task tree = taskManager.createTask("Ёлка", "Купить ёлку к празднику");
+        Epic move = taskManager.createEpic("Переезд", "Собрать книги в коробки");
+        Subtask boxes = taskManager.createSubtask("Коробки", "Купить коробки для книг", move.getId());
+
+        assertEquals(List.of(book, tree, boxes), taskManager.search("купить", 10),
+                "Слово из заголовка должно весить больше слова из описания.");
+        assertEquals(List.of(tree), taskManager.search("ЕЛКА", 10), "Регистр и «ё» не должны мешать поиску.");
+        assertEquals(List.of(boxes), taskManager.search("купить коробки", 10),
+                "Слова через пробел должны встретиться в задаче все.");
+        assertEquals(List.of(book, move, boxes), taskManager.search("книг*", 10),
+                "Префикс должен находить все формы слова.");
+        assertEquals(List.of(book, tree), taskManager.search("ёлку OR химия", 10),
+                "Группы через OR объединяются.");
+        assertEquals(List.of(book), taskManager.search("купить", 1), "Отдаётся не больше limit задач.");
+        assertTrue(taskManager.search("  !!  ", 10).isEmpty(), "Запрос без слов ничего не находит.");
+
+        Task renamed = taskManager.updateTask(new Task(book.getId(), "Продать книгу", "Физика"));
+        taskManager.deleteEpicById(move.getId());
+
+        assertEquals(List.of(tree), taskManager.search("купить", 10),
+                "Индекс должен забывать старый текст и удалённые задачи.");
+        assertSame(renamed, taskManager.search("продать", 10).get(0), "Поиск возвращает актуальный объект.");
+    }
+
+    @Test
+    void searchShouldAgreeWithFullScan() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        Random random = new Random(11);
+        String[] words = {"купить", "книгу", "книги", "физика", "химия", "ремонт", "кухня", "ёлка", "task", "42"};
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 3; w++) {
+                title.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            taskManager.createTask(title.toString(), words[random.nextInt(words.length)]);
+        }
+
+        for (String query : new String[]{"купить книгу", "книг*", "физика OR кухня", "елка task*"}) {
+            List<Task> found = taskManager.search(query, Integer.MAX_VALUE);
+            String[] groups = query.split(" OR ");
+            List<Task> scanned = taskManager.getAllTasks().stream()
+                    .filter(task -> {
+                        String text = (task.getTitle() + " " + task.getDescription()).replace('ё', 'е');
+                        for (String group : groups) {
+                            boolean all = true;
+                            for (String word : group.split(" ")) {
+                                boolean prefix = word.endsWith("*");
+                                String stem = word.replace("*", "");
+                                boolean hit = false;
+                                for (String token : text.split(" ")) {
+                                    hit |= prefix ? token.startsWith(stem) : token.equals(stem);
+                                }
+                                all &= hit;
+                            }
+                            if (all) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    })
+                    .toList();
+            assertEquals(scanned.size(), found.size(), "Индекс расходится с перебором: " + query);
+            assertTrue(found.containsAll(scanned), "Индекс расходится с перебором: " + query);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.util.IntLinkedSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedSetTest {
+
+    @Test
+    void shouldMatchLinkedHashSetOnRandomOperations() {
+        Random random = new Random(12);
+        IntLinkedSet set = new IntLinkedSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(3_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            if (i % 10_000 == 0) {
+                assertEquals(new ArrayList<>(expected), set.asList(), "Порядок добавления нарушен.");
+            }
+        }
+        assertEquals(new ArrayList<>(expected), set.asList(), "Порядок добавления нарушен.");
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+
+    @Test
+    void viewShouldBeLiveAndReadOnly() {
+        IntLinkedSet set = new IntLinkedSet();
+        List<Integer> view = set.asList();
+        set.add(5);
+        set.add(7);
+        set.add(9);
+        set.remove(7);
+        set.add(7);
+
+        assertEquals(List.of(5, 9, 7), view, "Представление должно отражать изменения.");
+        assertEquals(9, view.get(1));
+        assertTrue(view.contains(7));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(1));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(0));
+    }
+
+    @Test
+    void deletingSubtasksOfLargeEpicShouldKeepOrder() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            Subtask subtask = manager.createSubtask("Подзадача", "Описание", epic.getId());
+            ids.add(subtask.getId());
+        }
+
+        for (int i = 0; i < ids.size(); i += 2) {
+            manager.deleteSubtaskById(ids.get(i));
+        }
+
+        List<Integer> remaining = new ArrayList<>();
+        for (int i = 1; i < ids.size(); i += 2) {
+            remaining.add(ids.get(i));
+        }
+        assertEquals(remaining, new ArrayList<>(manager.getEpic(epic.getId()).getSubtasks()), "Оставшиеся подзадачи должны сохранить порядок.");
+    }
+}
@@ -0,0 +1,87 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Task;
+import typesoftasks.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectMapTest {
+
+    @Test
+    void shouldMatchHashMapOnRandomOperations() {
+        Random random = new Random(11);
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // Небольшой диапазон ключей с шагом 64 даёт длинные кластеры и проверяет сдвиг при удалении
+            int key = random.nextInt(2_000) * 64 - 10_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    break;
+            }
+        }
+        assertEquals(expected.size(), map.size(), "Размеры карт разошлись.");
+        assertEquals(expected.size(), map.values().size());
+        List<String> values = new ArrayList<>(map.values());
+        assertTrue(values.containsAll(expected.values()) && expected.values().containsAll(values),
+                "Значения карт разошлись.");
+    }
+
+    @Test
+    void valuesShouldFollowInsertionOrderAcrossRemovalsAndCompaction() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            map.put(i, i);
+            expected.add(i);
+        }
+        for (int i = 1; i <= 1_000; i += 2) {
+            map.remove(i);
+            expected.remove(Integer.valueOf(i));
+        }
+        map.put(2, -2);
+        expected.set(0, -2);
+        // Дыр не меньше, чем живых записей: следующие вставки уплотняют массивы, не меняя порядка
+        for (int i = 1_001; i <= 2_000; i++) {
+            map.put(i, i);
+            expected.add(i);
+        }
+        map.put(1, 1);
+        expected.add(1);
+
+        assertEquals(expected, new ArrayList<>(map.values()), "Порядок значений нарушен.");
+        assertNull(map.get(3), "Удалённый ключ не должен находиться.");
+        assertEquals(-2, map.get(2));
+    }
+
+    @Test
+    void shouldKeepSequentialIdsInOrder() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < 50; i++) {
+            manager.createTask("Задача " + i, "Описание");
+        }
+
+        int previous = 0;
+        for (Task task : manager.getAllTasks()) {
+            assertTrue(task.getId() > previous, "Задачи должны идти в порядке id.");
+            previous = task.getId();
+        }
+    }
+}
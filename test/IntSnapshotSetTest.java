@@ -0,0 +1,57 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.util.IntSnapshotSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSnapshotSetTest {
+
+    @Test
+    void snapshotsShouldNotSeeLaterChanges() {
+        Random random = new Random(7);
+        IntSnapshotSet set = new IntSnapshotSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        List<List<Integer>> snapshots = new ArrayList<>();
+        List<List<Integer>> states = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            if (i % 500 == 0) {
+                snapshots.add(set.snapshot());
+                states.add(new ArrayList<>(expected));
+            }
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(states.get(i), snapshots.get(i), "Снимок изменился после его выдачи.");
+            assertEquals(states.get(i).size(), snapshots.get(i).size());
+        }
+        assertEquals(new ArrayList<>(expected), set.snapshot(), "Порядок добавления нарушен.");
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+
+    @Test
+    void snapshotShouldBeReadOnly() {
+        IntSnapshotSet set = new IntSnapshotSet();
+        set.add(5);
+        set.add(7);
+        set.remove(5);
+        List<Integer> snapshot = set.snapshot();
+
+        assertEquals(7, snapshot.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(9));
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(1));
+    }
+}
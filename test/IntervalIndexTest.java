@@ -0,0 +1,67 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.IntervalIndex;
+import typesoftasks.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static Task task(int id, int startMinute, int durationMinutes) {
+        Task task = new Task(id, "T" + id, "desc")
+                .withSchedule(BASE.plusMinutes(startMinute), Duration.ofMinutes(durationMinutes));
+        return task;
+    }
+
+    @Test
+    void touchingIntervalsShouldNotOverlap() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task(1, 60, 60));
+
+        assertFalse(index.overlaps(BASE, BASE.plusMinutes(60), 0));
+        assertFalse(index.overlaps(BASE.plusMinutes(120), BASE.plusMinutes(180), 0));
+        assertTrue(index.overlaps(BASE.plusMinutes(119), BASE.plusMinutes(180), 0));
+        assertFalse(index.overlaps(BASE.plusMinutes(90), BASE.plusMinutes(100), 1), "Собственный интервал не учитывается");
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomIntervals() {
+        Random random = new Random(42);
+        IntervalIndex index = new IntervalIndex();
+        List<Task> all = new ArrayList<>();
+
+        for (int id = 1; id <= 2_000; id++) {
+            Task task = task(id, random.nextInt(100_000), 1 + random.nextInt(500));
+            index.add(task);
+            all.add(task);
+            if (id % 3 == 0) {
+                Task removed = all.remove(random.nextInt(all.size()));
+                index.remove(removed.getId());
+            }
+        }
+        assertEquals(all.size(), index.size());
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(300));
+
+            List<Task> expected = all.stream()
+                    .filter(t -> t.getStartTime().isBefore(to) && t.getEndTime().isAfter(from))
+                    .sorted(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId))
+                    .toList();
+
+            assertEquals(expected, index.overlapping(from, to));
+            assertEquals(!expected.isEmpty(), index.overlaps(from, to, 0));
+        }
+    }
+}
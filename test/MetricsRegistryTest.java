@@ -0,0 +1,116 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.FileBackedTaskManager;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.SnapshotFormat;
+import typesoftasks.metrics.LatencyHistogram;
+import typesoftasks.metrics.MetricsRegistry;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void histogramPercentilesShouldStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount(), "Каждое значение должно быть учтено.");
+        assertEquals(100_000_000, histogram.getMax(), "Максимум хранится точно.");
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            double exact = percentile * 1_000_000;
+            long reported = histogram.getPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact * 1.0625,
+                    "Перцентиль " + percentile + " вне допустимой ошибки: " + reported);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount(), "После сброса гистограмма пуста.");
+        assertEquals(0, histogram.getPercentile(99), "Пустая гистограмма отдаёт ноль.");
+    }
+
+    @Test
+    void managerShouldReportHotPathsAndCounts() {
+        MetricsRegistry registry = new MetricsRegistry();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setMetrics(registry);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        Task first = manager.createTask("Первая", "Описание").withSchedule(start, Duration.ofMinutes(60));
+        manager.updateTask(first);
+        Task second = manager.createTask("Вторая", "Описание")
+                .withSchedule(start.plusMinutes(30), Duration.ofMinutes(60));
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(second));
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        manager.createSubtask("Подзадача", "Описание", epic.getId());
+        manager.getTask(first.getId());
+
+        assertEquals(2, registry.timer("hasIntersection").getCount(), "Обе проверки пересечения должны быть замерены.");
+        assertEquals(1, registry.counter("overlapsRejected").get(), "Отклонённое пересечение должно быть посчитано.");
+        assertEquals(1, registry.timer("updateEpicStatus").getCount(), "Пересчёт статуса эпика должен быть замерен.");
+        assertEquals(2, registry.getGauge("tasks"), "Датчик задач показывает текущее число задач.");
+        assertEquals(1, registry.getGauge("epics"), "Датчик эпиков показывает текущее число эпиков.");
+        assertEquals(1, registry.getGauge("subtasks"), "Датчик подзадач показывает текущее число подзадач.");
+        assertEquals(1, registry.getGauge("history"), "Датчик истории показывает её размер.");
+
+        String report = registry.dump();
+        assertTrue(report.contains("counter overlapsRejected 1"), "Счётчик должен попасть в отчёт.");
+        assertTrue(report.contains("gauge tasks 2"), "Датчик должен попасть в отчёт.");
+        assertTrue(report.contains("timer hasIntersection count=2"), "Таймер должен попасть в отчёт.");
+    }
+
+    @Test
+    void fileBackedManagerShouldTimeSaveAndLoad() throws Exception {
+        File file = File.createTempFile("test-metrics", ".csv");
+        file.deleteOnExit();
+        File journal = FileBackedTaskManager.journalFile(file);
+        journal.deleteOnExit();
+        MetricsRegistry registry = new MetricsRegistry();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, PersistenceMode.JOURNAL, SnapshotFormat.CSV);
+        manager.setMetrics(registry);
+        manager.createTask("Задача", "Описание");
+        manager.deleteTaskById(manager.createTask("Удаляемая", "Описание").getId());
+        manager.compact();
+        manager.close();
+
+        assertEquals(3, registry.counter("journalRecords").get(), "Каждая запись журнала должна быть посчитана.");
+        assertEquals(1, registry.timer("save").getCount(), "Компактизация сохраняет снимок один раз.");
+
+        FileBackedTaskManager loaded =
+                FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL, SnapshotFormat.CSV, registry);
+        assertEquals(1, registry.timer("loadFromFile").getCount(), "Загрузка должна быть замерена.");
+        assertEquals(1, registry.getGauge("tasks"), "Датчики переходят к загруженному менеджеру.");
+        loaded.close();
+    }
+
+    @Test
+    void reportShouldBeReadableThroughJmx() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setMetrics(registry);
+        manager.createTask("Задача", "Описание");
+
+        ObjectName name = registry.registerMBean("test-" + System.nanoTime());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            String report = (String) server.getAttribute(name, "Report");
+            assertTrue(report.contains("gauge tasks 1"), "Снимок по JMX должен совпадать с текстовым.");
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package test.java.typesoftasks.managers;
+
+import org.junit.jupiter.api.Test;
+import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.managers.ManagerSaveException;
+import typesoftasks.managers.PersistenceMode;
+import typesoftasks.managers.ShardedTaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
+import typesoftasks.tasks.Task;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTaskManagerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Test
+    void shouldKeepSubtasksWithTheirEpicAndIdsUnique() throws Exception {
+        ShardedTaskManager manager = ShardedTaskManager.inMemory(4);
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        int threads = 4;
+        int perThread = 1_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<List<Integer>>> jobs = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            jobs.add(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int j = 0; j < perThread; j++) {
+                    ids.add(manager.createTask("Задача", "Описание").getId());
+                    ids.add(manager.createSubtask("Подзадача", "Описание", epic.getId()).getId());
+                }
+                return ids;
+            });
+        }
+        Set<Integer> unique = new HashSet<>();
+        try {
+            for (Future<List<Integer>> future : executor.invokeAll(jobs)) {
+                unique.addAll(future.get());
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "Потоки не завершились вовремя.");
+        }
+
+        assertEquals(threads * perThread * 2, unique.size(), "Идентификаторы не должны повторяться.");
+        assertEquals(threads * perThread * 2 + 1, manager.getAllTasks().size(), "Задачи не должны теряться.");
+        List<Subtask> subtasks = manager.getSubtasksByEpic(epic.getId());
+        assertEquals(threads * perThread, subtasks.size(), "Эпик должен видеть все свои подзадачи.");
+        for (Subtask subtask : subtasks) {
+            assertEquals(subtask, manager.getSubtaskById(subtask.getId()), "Подзадача находится по id.");
+        }
+    }
+
+    @Test
+    void shouldRejectOverlapsAcrossShardsAndMergeSchedule() {
+        ShardedTaskManager manager = ShardedTaskManager.inMemory(3);
+        List<Task> scheduled = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Task task = manager.createTask("Задача " + i, "Описание");
+            scheduled.add(manager.updateTask(task.withSchedule(START.plusHours(i), Duration.ofMinutes(30))));
+        }
+
+        Task late = manager.createTask("Опоздание", "Описание");
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.updateTask(late.withSchedule(START.plusMinutes(10), Duration.ofMinutes(30))),
+                "Пересечение с задачей другого шарда должно отклоняться.");
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.createAll(List.of(new Task(0, "Пакет", "Описание", null,
+                        Duration.ofMinutes(30), START.plusHours(5).plusMinutes(15), Task.UNVERSIONED))),
+                "Пакет тоже проверяется по всем шардам.");
+
+        assertEquals(scheduled, manager.getPrioritizedTasks(), "Расписание шардов сливается по времени начала.");
+        assertEquals(scheduled.subList(3, 6), manager.getPrioritizedTasksAfter(scheduled.get(2), 3));
+        assertEquals(1, manager.getOverlappingTasks(START.plusHours(7), START.plusHours(7).plusMinutes(1)).size());
+        assertEquals(scheduled.get(4).getId(), manager.search("Задача 4", 1).get(0).getId(),
+                "Поиск выбирает лучших кандидатов из всех шардов.");
+    }
+
+    @Test
+    void shouldReopenShardFilesAndRejectDifferentShardCount() throws Exception {
+        File directory = Files.createTempDirectory("sharded").toFile();
+        directory.deleteOnExit();
+        Set<Integer> ids = new HashSet<>();
+        try (ShardedTaskManager manager = ShardedTaskManager.fileBacked(directory, 2, PersistenceMode.JOURNAL)) {
+            Epic epic = manager.createEpic("Эпик", "Описание");
+            ids.add(epic.getId());
+            ids.add(manager.createSubtask("Подзадача", "Описание", epic.getId()).getId());
+            for (int i = 0; i < 20; i++) {
+                ids.add(manager.createTask("Задача " + i, "Описание").getId());
+            }
+            Task timed = manager.createTask("Со временем", "Описание");
+            ids.add(manager.updateTask(timed.withSchedule(START, Duration.ofMinutes(60))).getId());
+        }
+
+        try (ShardedTaskManager reopened = ShardedTaskManager.fileBacked(directory, 2, PersistenceMode.JOURNAL)) {
+            Set<Integer> loaded = new HashSet<>();
+            for (Task task : reopened.getAllTasks()) {
+                loaded.add(task.getId());
+            }
+            assertEquals(ids, loaded, "После перезапуска задачи остаются в своих шардах.");
+            Task fresh = reopened.createTask("Новая", "Описание");
+            assertFalse(ids.contains(fresh.getId()), "Новые id не совпадают с загруженными.");
+            assertThrows(IllegalArgumentException.class,
+                    () -> reopened.updateTask(fresh.withSchedule(START.plusMinutes(30), Duration.ofMinutes(60))),
+                    "Интервалы загруженных шардов участвуют в проверке пересечений.");
+        }
+
+        assertThrows(ManagerSaveException.class,
+                () -> ShardedTaskManager.fileBacked(directory, 1, PersistenceMode.JOURNAL),
+                "Файлы, записанные при другом числе шардов, не открываются.");
+        for (File file : directory.listFiles()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Test
+    void searchShouldRankLikeSingleIndex() {
+        ShardedTaskManager sharded = ShardedTaskManager.inMemory(3);
+        InMemoryTaskManager single = new InMemoryTaskManager();
+        // «кот» почти везде и повторяется, «пёс» редкий: без общей редкости слов частый «кот» обогнал бы его.
+        // Оценки в запросах различны, поэтому порядок не зависит от id, которые у шардов другие
+        for (int i = 1; i <= 20; i++) {
+            String description = "кот ".repeat(i) + (i % 4 == 0 ? "мышь" : "");
+            sharded.createTask("Задача " + i, description);
+            single.createTask("Задача " + i, description);
+        }
+        for (int i = 1; i <= 3; i++) {
+            String description = "пёс ".repeat(i) + (i == 3 ? "кот" : "");
+            sharded.createTask("Собака " + i, description);
+            single.createTask("Собака " + i, description);
+        }
+
+        for (String query : List.of("кот OR пёс", "кот мышь", "пё*", "ко* | пёс")) {
+            assertEquals(titles(single.search(query, 6)), titles(sharded.search(query, 6)),
+                    "Порядок по запросу «" + query + "» должен совпадать с одним индексом.");
+        }
+        assertTrue(titles(sharded.search("кот OR пёс", 3)).stream().allMatch(title -> title.startsWith("Собака")),
+                "Редкое слово весит больше частого.");
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        return tasks.stream().map(Task::getTitle).toList();
+    }
+
+    @Test
+    void readsShouldRecordHistoryOnlyOnce() {
+        InMemoryTaskManager first = new InMemoryTaskManager();
+        InMemoryTaskManager second = new InMemoryTaskManager();
+        ShardedTaskManager manager = new ShardedTaskManager(List.of(first, second));
+        List<Task> viewed = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Task task = manager.createTask("Задача " + i, "Описание");
+            viewed.add(manager.getTask(task.getId()));
+        }
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        viewed.add(manager.getEpic(epic.getId()));
+
+        assertEquals(viewed, manager.getHistory(), "Общая история хранит просмотры по порядку.");
+        assertTrue(first.getHistory().isEmpty() && second.getHistory().isEmpty(),
+                "Шарды не должны вести собственную историю.");
+
+        manager.deleteTaskById(viewed.get(0).getId());
+        assertEquals(viewed.subList(1, viewed.size()), manager.getHistory());
+    }
+}
@@ -1,8 +1,15 @@
 package test.java.typesoftasks.managers;
 
 import typesoftasks.managers.InMemoryTaskManager;
+import typesoftasks.tasks.Epic;
+import typesoftasks.tasks.Subtask;
 import typesoftasks.tasks.Task;
 import org.junit.jupiter.api.Test;
+import typesoftasks.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,4 +24,63 @@ class TaskTest {
         assertNotEquals(task1.getId(), task2.getId(), "ID задач должны быть уникальными.");
     }
 
-}
\ No newline at end of file
+    @Test
+    void withShouldReturnNewVersionAndKeepOriginal() {
+        Subtask subtask = new Subtask(5, "Подзадача", "Описание", 3);
+        LocalDateTime start = LocalDateTime.of(2025, 6, 10, 10, 0);
+
+        Subtask changed = subtask.withStatus(TaskStatus.DONE).withSchedule(start, Duration.ofMinutes(30));
+
+        assertEquals(TaskStatus.NEW, subtask.getStatus(), "Исходная версия не должна меняться.");
+        assertNull(subtask.getStartTime(), "Исходная версия не должна меняться.");
+        assertEquals(TaskStatus.DONE, changed.getStatus());
+        assertEquals(start.plusMinutes(30), changed.getEndTime());
+        assertEquals(3, changed.getEpicId(), "Новая версия подзадачи остаётся в том же эпике.");
+        assertEquals(subtask, changed, "Версии одной задачи равны по id.");
+    }
+
+    @Test
+    void epicCopyShouldKeepStatusDerivedFromSubtasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = manager.createEpic("Эпик", "Описание");
+        Subtask subtask = manager.createSubtask("Подзадача", "Описание", epic.getId());
+        manager.updateSubtask(subtask.withStatus(TaskStatus.DONE)
+                .withSchedule(LocalDateTime.of(2025, 6, 10, 10, 0), Duration.ofMinutes(30)));
+        Epic stored = manager.getEpic(epic.getId());
+
+        Epic copy = stored.withDescription("Новое описание");
+
+        assertThrows(UnsupportedOperationException.class, () -> stored.withStatus(TaskStatus.NEW),
+                "Статус эпика задаётся только подзадачами.");
+        assertThrows(UnsupportedOperationException.class, () -> stored.withDuration(Duration.ofMinutes(5)));
+        assertThrows(UnsupportedOperationException.class, () -> stored.withStartTime(LocalDateTime.now()));
+        assertThrows(UnsupportedOperationException.class,
+                () -> stored.withSchedule(LocalDateTime.now(), Duration.ofMinutes(5)));
+        assertEquals(TaskStatus.DONE, copy.getStatus(), "Копия сохраняет выведенный статус.");
+        assertEquals(stored.getStartTime(), copy.getStartTime());
+        assertEquals(stored.getEndTime(), copy.getEndTime());
+        assertEquals(List.of(subtask.getId()), copy.getSubtasks());
+        assertEquals("Новое описание", copy.getDescription());
+        assertEquals("Описание", stored.getDescription(), "Исходный снимок не должен меняться.");
+        assertEquals(TaskStatus.NEW, epic.getStatus(), "Выданный раньше снимок не должен меняться.");
+    }
+
+    @Test
+    void managerShouldHandOutStoredVersionsWithoutCopying() {
+        InMemoryTaskManager taskManager = new InMemoryTaskManager();
+        LocalDateTime start = LocalDateTime.of(2025, 6, 10, 10, 0);
+        Task early = taskManager.updateTask(taskManager.createTask("Ранняя", "Описание")
+                .withSchedule(start, Duration.ofMinutes(30)));
+        Task late = taskManager.updateTask(taskManager.createTask("Поздняя", "Описание")
+                .withSchedule(start.plusHours(2), Duration.ofMinutes(30)));
+
+        Task read = taskManager.getTask(early.getId());
+        read.withStartTime(start.plusHours(5)); // новая версия, сохранённая не меняется
+
+        assertSame(early, read, "Менеджер должен отдавать сохранённую версию.");
+        assertSame(early, taskManager.getHistory().get(0), "История хранит ту же версию.");
+        assertEquals(List.of(early, late), taskManager.getPrioritizedTasks(),
+                "Новая версия без update не должна ломать порядок расписания.");
+        assertSame(early, taskManager.getPrioritizedTasksView().first());
+    }
+}